@@ -0,0 +1,215 @@
+package optimus.prime.rsa.server.communication;
+
+import optimus.prime.rsa.Message;
+import optimus.prime.rsa.MessageType;
+import optimus.prime.rsa.payloads.JoinPayload;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the cost of the master per connected slave. Every operation is
+ * a round in which every slave sends a heartbeat and the master reads all of
+ * them. The {@link SlaveSelector} of the master is compared to the way the
+ * master handled the slaves before, with a thread and a blocking stream per slave.
+ * Besides the time per round, the heap and the threads that the master needs per
+ * connected slave and the CPU time of the master per heartbeat are printed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MasterConnectionBenchmark {
+
+    @Param({"100", "1000"})
+    public int slaves;
+
+    @Param({"selector", "threads"})
+    public String model;
+
+    private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    // the threads of the master, their CPU time is measured
+    private final List<Thread> masterThreads = new CopyOnWriteArrayList<>();
+    // a permit for every message that the master read
+    private final Semaphore received = new Semaphore(0);
+    private final List<SocketChannel> clients = new ArrayList<>();
+    private ByteBuffer heartbeat;
+    private volatile boolean running = true;
+    private SlaveSelector selector;
+    private Thread selectorThread;
+    private ServerSocket serverSocket;
+    private PrintStream out;
+
+    private long cpuNanos;
+    private long rounds;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        this.out = System.out;
+        // the channels log when they are closed
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        this.heartbeat = Frames.encode(new Message(MessageType.SLAVE_HEARTBEAT));
+        ByteBuffer join = Frames.encode(new Message(MessageType.SLAVE_JOIN, new JoinPayload(1, 1)));
+
+        long heapBefore = usedHeap();
+        int threadsBefore = Thread.activeCount();
+        InetSocketAddress address = this.model.equals("selector") ? this.startSelector() : this.startThreads();
+
+        // every slave connects and joins
+        for (int i = 0; i < this.slaves; i++) {
+            SocketChannel client = SocketChannel.open(address);
+            client.write(join.duplicate());
+            this.clients.add(client);
+        }
+        this.received.acquire(this.slaves);
+
+        long heapPerSlave = (usedHeap() - heapBefore) / this.slaves;
+        double threadsPerSlave = (double) (Thread.activeCount() - threadsBefore) / this.slaves;
+        this.out.printf("%n%s with %d slaves: %d bytes of heap and %.3f threads of the master per slave%n",
+                this.model, this.slaves, heapPerSlave, threadsPerSlave);
+    }
+
+    /**
+     * Start the master with a {@link SlaveSelector} on a single thread
+     *
+     * @return the address the slaves connect to
+     * @throws IOException if the port cannot be opened
+     */
+    private InetSocketAddress startSelector() throws IOException {
+        this.selector = new SlaveSelector(InetAddress.getLoopbackAddress(), 0, this.slaves, 0, channel -> new SlaveChannel.Listener() {
+            @Override
+            public void onMessage(Message message) {
+                received.release();
+            }
+
+            @Override
+            public void onClose(IOException cause) {
+            }
+        });
+        this.selectorThread = new Thread(() -> {
+            try {
+                while (this.running) {
+                    this.selector.select(100);
+                }
+            } catch (IOException ignored) {
+            }
+        });
+        this.masterThreads.add(this.selectorThread);
+        this.selectorThread.start();
+        return (InetSocketAddress) this.selector.getLocalAddress();
+    }
+
+    /**
+     * Start the master with a thread and a blocking stream per slave
+     *
+     * @return the address the slaves connect to
+     * @throws IOException if the port cannot be opened
+     */
+    private InetSocketAddress startThreads() throws IOException {
+        this.serverSocket = new ServerSocket(0, this.slaves, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(() -> {
+            while (this.running) {
+                try {
+                    Socket slave = this.serverSocket.accept();
+                    Thread thread = new Thread(() -> {
+                        try (DataInputStream in = new DataInputStream(new BufferedInputStream(slave.getInputStream()))) {
+                            while (this.running) {
+                                Frames.read(in);
+                                this.received.release();
+                            }
+                        } catch (IOException | ClassNotFoundException ignored) {
+                        }
+                    });
+                    this.masterThreads.add(thread);
+                    thread.start();
+                } catch (IOException ignored) {
+                }
+            }
+        });
+        this.masterThreads.add(acceptor);
+        acceptor.start();
+        return (InetSocketAddress) this.serverSocket.getLocalSocketAddress();
+    }
+
+    @Setup(Level.Iteration)
+    public void startMeasuring() {
+        this.cpuNanos = -this.masterCpuNanos();
+        this.rounds = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void stopMeasuring() {
+        this.cpuNanos += this.masterCpuNanos();
+        if (this.rounds > 0) {
+            this.out.printf("%.0f ns of CPU of the master per heartbeat%n", (double) this.cpuNanos / this.rounds / this.slaves);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, InterruptedException {
+        this.running = false;
+        for (SocketChannel client : this.clients) {
+            client.close();
+        }
+        if (this.selector != null) {
+            this.selectorThread.join();
+            this.selector.close();
+        }
+        if (this.serverSocket != null) {
+            this.serverSocket.close();
+        }
+        System.setOut(this.out);
+    }
+
+    @Benchmark
+    public void heartbeats() throws IOException, InterruptedException {
+        for (SocketChannel client : this.clients) {
+            client.write(this.heartbeat.duplicate());
+        }
+        this.received.acquire(this.slaves);
+        this.rounds++;
+    }
+
+    /**
+     * Get the CPU time of the threads of the master
+     *
+     * @return the CPU time in nanoseconds
+     */
+    private long masterCpuNanos() {
+        long nanos = 0;
+        for (Thread thread : this.masterThreads) {
+            nanos += Math.max(this.threadBean.getThreadCpuTime(thread.getId()), 0);
+        }
+        return nanos;
+    }
+
+    /**
+     * Get the heap that is in use after a garbage collection
+     *
+     * @return the used heap in bytes
+     */
+    private static long usedHeap() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
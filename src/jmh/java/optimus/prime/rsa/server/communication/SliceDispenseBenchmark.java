@@ -0,0 +1,169 @@
+package optimus.prime.rsa.server.communication;
+
+import optimus.prime.rsa.Message;
+import optimus.prime.rsa.MessageType;
+import optimus.prime.rsa.payloads.FinishedWorkPayload;
+import optimus.prime.rsa.payloads.JoinPayload;
+import optimus.prime.rsa.payloads.SlicePayload;
+import optimus.prime.rsa.server.SliceLedger;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of handing out slices to many slaves at once. Every operation is a
+ * round in which every slave asks the master for work with SLAVE_FINISHED_WORK,
+ * like the slaves do after every slice. The {@link SlaveSelector} reads the
+ * requests on a single thread, which marks the slice of the slave as done and
+ * takes the next one from the {@link SliceLedger}. Besides the time per round,
+ * the average and the longest time the selector needed to hand out a slice is
+ * printed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SliceDispenseBenchmark {
+
+    // rows of the ledger, it is started again when all rows are handed out
+    private static final int ROWS = 1 << 30;
+    // rows of a slice
+    private static final int SLICE_ROWS = 16;
+
+    @Param({"100", "1000"})
+    public int slaves;
+
+    // a permit for every slice that has been handed out
+    private final Semaphore dispensed = new Semaphore(0);
+    private final List<SocketChannel> clients = new ArrayList<>();
+    private ByteBuffer finishedWork;
+    private volatile boolean running = true;
+    private SliceLedger ledger;
+    private SlaveSelector selector;
+    private Thread selectorThread;
+    private PrintStream out;
+
+    // written by the thread of the selector during a round, every round ends
+    // when all of its slices have been handed out
+    private long dispenseNanos;
+    private long maxDispenseNanos;
+    private long dispenses;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        this.out = System.out;
+        // the channels log when they are closed
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        this.ledger = new SliceLedger(ROWS);
+        // the master marks the slice it handed out to the slave as done,
+        // so the slave does not need to send it back
+        this.finishedWork = Frames.encode(new Message(MessageType.SLAVE_FINISHED_WORK, new FinishedWorkPayload(null, 0)));
+        ByteBuffer join = Frames.encode(new Message(MessageType.SLAVE_JOIN, new JoinPayload(1, 1)));
+        ByteBuffer firstSlice = Frames.encode(new Message(MessageType.SLAVE_GET_FIRST_SLICE));
+
+        this.selector = new SlaveSelector(InetAddress.getLoopbackAddress(), 0, this.slaves, 0, channel -> new SlaveChannel.Listener() {
+            private SlicePayload slice;
+
+            @Override
+            public void onMessage(Message message) {
+                if (message.getType() == MessageType.SLAVE_JOIN) {
+                    return;
+                }
+                long start = System.nanoTime();
+                if (message.getType() == MessageType.SLAVE_FINISHED_WORK && this.slice != null) {
+                    ledger.markDone(this.slice);
+                }
+                this.slice = take();
+                long nanos = System.nanoTime() - start;
+                dispenseNanos += nanos;
+                maxDispenseNanos = Math.max(maxDispenseNanos, nanos);
+                dispenses++;
+                dispensed.release();
+            }
+
+            @Override
+            public void onClose(IOException cause) {
+            }
+        });
+        this.selectorThread = new Thread(() -> {
+            try {
+                while (this.running) {
+                    this.selector.select(100);
+                }
+            } catch (IOException ignored) {
+            }
+        });
+        this.selectorThread.start();
+
+        // every slave connects, joins and gets its first slice
+        InetSocketAddress address = (InetSocketAddress) this.selector.getLocalAddress();
+        for (int i = 0; i < this.slaves; i++) {
+            SocketChannel client = SocketChannel.open(address);
+            client.write(join.duplicate());
+            client.write(firstSlice.duplicate());
+            this.clients.add(client);
+        }
+        this.dispensed.acquire(this.slaves);
+    }
+
+    /**
+     * Take the next slice from the ledger, the ledger is started again when
+     * all of its rows have been handed out
+     *
+     * @return the slice
+     */
+    private SlicePayload take() {
+        SlicePayload slice = this.ledger.take((start, lastRow) -> start + SLICE_ROWS - 1);
+        if (slice == null) {
+            this.ledger = new SliceLedger(ROWS);
+            slice = this.ledger.take((start, lastRow) -> start + SLICE_ROWS - 1);
+        }
+        return slice;
+    }
+
+    @Setup(Level.Iteration)
+    public void startMeasuring() {
+        this.dispenseNanos = 0;
+        this.maxDispenseNanos = 0;
+        this.dispenses = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void stopMeasuring() {
+        if (this.dispenses > 0) {
+            this.out.printf("%n%d slaves: %.0f ns per slice on average, %d ns for the longest slice%n",
+                    this.slaves, (double) this.dispenseNanos / this.dispenses, this.maxDispenseNanos);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, InterruptedException {
+        this.running = false;
+        for (SocketChannel client : this.clients) {
+            client.close();
+        }
+        this.selectorThread.join();
+        this.selector.close();
+        System.setOut(this.out);
+    }
+
+    @Benchmark
+    public void dispense() throws IOException, InterruptedException {
+        for (SocketChannel client : this.clients) {
+            client.write(this.finishedWork.duplicate());
+        }
+        this.dispensed.acquire(this.slaves);
+    }
+}
@@ -0,0 +1,103 @@
+package optimus.prime.rsa.server.crypto;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Shared input data of the benchmarks
+ */
+public class BenchmarkData {
+
+    /**
+     * Loads one of the bundled prime lists
+     *
+     * @param primeList the name of the list, e.g. 1000 for primes1000.txt
+     * @return the {@link List} of primes
+     * @throws IOException if the list cannot be read
+     */
+    public static List<BigInteger> loadPrimes(String primeList) throws IOException {
+        List<BigInteger> primes = new ArrayList<>();
+        InputStream stream = BenchmarkData.class.getClassLoader().getResourceAsStream("primes" + primeList + ".txt");
+        if (stream == null) {
+            throw new IOException("primes" + primeList + ".txt not found");
+        }
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(stream))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                primes.add(new BigInteger(line));
+            }
+        }
+        return primes;
+    }
+
+    /**
+     * Get a modulus that shares no factor with the primes of the list, so that
+     * every search mode has to inspect its whole search space. The factors are
+     * the smallest primes above the first prime of the list that are not part
+     * of it, so the modulus is within the bit-length band of the list.
+     *
+     * @param primes the {@link List} of primes
+     * @return the modulus
+     */
+    public static BigInteger missingModulus(List<BigInteger> primes) {
+        Set<BigInteger> set = new HashSet<>(primes);
+        BigInteger p = nextMissingPrime(primes.get(0), set);
+        BigInteger q = nextMissingPrime(p, set);
+        return p.multiply(q);
+    }
+
+    private static BigInteger nextMissingPrime(BigInteger value, Set<BigInteger> primes) {
+        BigInteger prime = value.nextProbablePrime();
+        while (primes.contains(prime)) {
+            prime = prime.nextProbablePrime();
+        }
+        return prime;
+    }
+
+    /**
+     * Get the number of pairs in the rows from 0 to end of the pair scan
+     *
+     * @param size the number of primes
+     * @param end the index of the last row
+     * @return the number of pairs
+     */
+    public static long pairsUntil(int size, int end) {
+        long rows = end + 1;
+        return rows * (size - 1) - rows * (rows - 1) / 2;
+    }
+
+    /**
+     * Create the kernel of an engine and make sure that the engine is available,
+     * so that the results of the fallback are not reported as the vector engine
+     *
+     * @param engine the name of the engine
+     * @return the {@link PairKernel} of the engine
+     */
+    public static PairKernel kernel(String engine) {
+        PairKernel kernel = PairKernel.forEngine(engine);
+        if (!kernel.getName().equals(engine)) {
+            throw new IllegalStateException("the engine " + engine + " is not available, run with --add-modules jdk.incubator.vector");
+        }
+        return kernel;
+    }
+
+    /**
+     * Silences {@link System#out}, because the workers log every slice they inspect
+     *
+     * @return the previous {@link PrintStream} to restore it afterwards
+     */
+    public static PrintStream silence() {
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        return out;
+    }
+}
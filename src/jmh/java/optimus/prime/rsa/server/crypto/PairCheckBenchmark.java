@@ -0,0 +1,112 @@
+package optimus.prime.rsa.server.crypto;
+
+import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
+import org.bouncycastle.crypto.params.RSAKeyGenerationParameters;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of a single pair check, every operation checks one pair of primes.
+ * The pairs are drawn at random from the prime list and the modulus is not
+ * part of them, like almost every pair of a real mission.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PairCheckBenchmark {
+
+    // a power of two, so that the next pair can be chosen with a mask
+    private static final int PAIRS = 1 << 12;
+
+    @Param({"1000", "10000"})
+    public String primeList;
+
+    private BigInteger[] p;
+    private BigInteger[] q;
+    private long[] pWords;
+    private long[] qWords;
+    private int next = 0;
+
+    private BigInteger modulus;
+    private ModulusChecker modulusChecker;
+    private RSAHelper rsaHelper;
+    private RSAKeyPairGenerator generator;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        List<BigInteger> primes = BenchmarkData.loadPrimes(this.primeList);
+        this.modulus = BenchmarkData.missingModulus(primes);
+        this.modulusChecker = new ModulusChecker(this.modulus);
+        this.rsaHelper = new RSAHelper();
+        this.generator = new RSAKeyPairGenerator();
+        this.generator.init(new RSAKeyGenerationParameters(
+                RSAStatics.e,
+                new SecureRandom(),
+                RSAStatics.KEY_SIZE,
+                RSAStatics.CERTAINTY)
+        );
+
+        // only pairs that a key pair can be generated for, see generateKeyPair
+        Random random = new Random(42);
+        this.p = new BigInteger[PAIRS];
+        this.q = new BigInteger[PAIRS];
+        this.pWords = new long[PAIRS];
+        this.qWords = new long[PAIRS];
+        for (int i = 0; i < PAIRS; ) {
+            BigInteger a = primes.get(random.nextInt(primes.size()));
+            BigInteger b = primes.get(random.nextInt(primes.size()));
+            if (!ModulusChecker.isExponentValid(a, b)) {
+                continue;
+            }
+            this.p[i] = a;
+            this.q[i] = b;
+            this.pWords[i] = a.longValue();
+            this.qWords[i] = b.longValue();
+            i++;
+        }
+    }
+
+    private int nextPair() {
+        this.next = (this.next + 1) & (PAIRS - 1);
+        return this.next;
+    }
+
+    @Benchmark
+    public boolean rsaHelperIsValid() {
+        int i = this.nextPair();
+        return this.rsaHelper.isValid(this.p[i], this.q[i], this.modulus);
+    }
+
+    @Benchmark
+    public AsymmetricCipherKeyPair generateKeyPair() {
+        int i = this.nextPair();
+        return this.generator.generateKeyPair(this.p[i], this.q[i]);
+    }
+
+    @Benchmark
+    public boolean modulusCheckerIsValid() {
+        int i = this.nextPair();
+        return this.modulusChecker.isValid(this.p[i], this.q[i]);
+    }
+
+    @Benchmark
+    public boolean modulusCheckerMatchesWords() {
+        int i = this.nextPair();
+        return this.modulusChecker.matches(this.pWords[i], this.qWords[i]);
+    }
+
+    @Benchmark
+    public boolean fingerprint() {
+        int i = this.nextPair();
+        return this.modulusChecker.matchesFingerprint(this.pWords[i], this.qWords[i]);
+    }
+}
@@ -0,0 +1,74 @@
+package optimus.prime.rsa.server.crypto;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the {@link PairKernel}s on a single row of the pair scan.
+ * Every invocation scans ROW_LENGTH partners, so the operations per second
+ * are the pairs per second of the engine.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RowBenchmark {
+
+    private static final int ROW_LENGTH = 512;
+
+    @Param({"1000", "10000"})
+    public String primeList;
+
+    @Param({PairKernel.SCALAR, PairKernel.VECTOR})
+    public String engine;
+
+    private PairKernel kernel;
+    private long[] words;
+    private int[] indices;
+    private long target;
+    private int row = 0;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        this.kernel = BenchmarkData.kernel(this.engine);
+        List<BigInteger> primes = BenchmarkData.loadPrimes(this.primeList);
+        PrimeStore store = new PrimeStore(primes);
+        this.words = store.getWords();
+        this.indices = store.getResidueIndex().getIndices();
+        this.target = BenchmarkData.missingModulus(primes).longValue();
+    }
+
+    private int nextRow() {
+        this.row++;
+        if (this.row + ROW_LENGTH >= this.words.length) {
+            this.row = 0;
+        }
+        return this.row;
+    }
+
+    /**
+     * scans a contiguous window of partners, like a row whose residue is not invertible
+     */
+    @Benchmark
+    @OperationsPerInvocation(ROW_LENGTH)
+    public int window() {
+        int a = this.nextRow();
+        return this.kernel.nextWindowMatch(this.words, a + 1, a + ROW_LENGTH, this.words[a], this.target);
+    }
+
+    /**
+     * scans partners that are gathered by their indices, like the bucket of a row
+     */
+    @Benchmark
+    @OperationsPerInvocation(ROW_LENGTH)
+    public int bucket() {
+        int a = this.nextRow();
+        return this.kernel.nextBucketMatch(this.words, this.indices, a, a + ROW_LENGTH, this.words[a], this.target);
+    }
+}
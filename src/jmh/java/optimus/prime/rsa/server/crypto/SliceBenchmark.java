@@ -0,0 +1,83 @@
+package optimus.prime.rsa.server.crypto;
+
+import optimus.prime.rsa.SearchMode;
+import optimus.prime.rsa.payloads.SlicePayload;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of {@link Worker#call()} on a slice that covers the whole prime
+ * list. The modulus is not part of the list, so every worker inspects its
+ * whole search space. Besides the slices per second the benchmark reports the
+ * pairs (or primes for the linear search modes) per second as a secondary result.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SliceBenchmark {
+
+    @Param({"1000", "10000"})
+    public String primeList;
+
+    @Param({"PAIR_SCAN", "TRIAL_DIVISION", "COFACTOR_LOOKUP"})
+    public SearchMode searchMode;
+
+    @Param({PairKernel.SCALAR, PairKernel.VECTOR})
+    public String engine;
+
+    private PrimeStore store;
+    private PairKernel kernel;
+    private BigInteger modulus;
+    private SlicePayload slice;
+    private long checksPerSlice;
+    private PrintStream out;
+
+    /**
+     * The checks that are done by the benchmark, reported as a rate
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Checks {
+        public long checks;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            this.checks = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        this.kernel = BenchmarkData.kernel(this.engine);
+        List<BigInteger> primes = BenchmarkData.loadPrimes(this.primeList);
+        this.store = new PrimeStore(primes);
+        this.modulus = BenchmarkData.missingModulus(primes);
+        this.slice = new SlicePayload(0, this.store.size() - 1);
+        this.checksPerSlice = this.searchMode.isLinear()
+                ? this.store.size()
+                : BenchmarkData.pairsUntil(this.store.size(), this.store.size() - 1);
+        this.out = BenchmarkData.silence();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.setOut(this.out);
+    }
+
+    @Benchmark
+    public Object call(Checks checks) {
+        KeyRing keys = new KeyRing(Collections.singletonList(this.modulus));
+        Object solutions = new Worker(this.slice, this.store, keys, this.searchMode, null, this.kernel).call();
+        checks.checks += this.checksPerSlice;
+        return solutions;
+    }
+}
@@ -16,19 +16,29 @@ public enum MessageType {
     MASTER_DO_WORK,
     MASTER_EXIT,
     MASTER_SEND_PRIMES,
-    MASTER_SEND_PUB_KEY_RSA,
+    MASTER_SEND_KEYS,
     MASTER_PROGRESS,
-    MASTER_CIPHER,
     MASTER_START_MILLIS,
     MASTER_SOLUTION_FOUND,
     MASTER_CONFIRM,
     MASTER_START_MESSAGE,
+    MASTER_SEND_SEARCH_MODE,
+    MASTER_KEY_SOLVED,
+    MASTER_CANCEL,
+    MASTER_SPLIT_REQUEST,
+    MASTER_CANCEL_SLICE,
+    MASTER_EVICT,
     SLAVE_JOIN,
     SLAVE_FINISHED_WORK,
     SLAVE_SOLUTION_FOUND,
     SLAVE_EXIT_ACKNOWLEDGE,
     SLAVE_NOT_MASTER,
     SLAVE_GET_FIRST_SLICE,
+    SLAVE_CANCEL_ACKNOWLEDGE,
+    SLAVE_SPLIT_ACKNOWLEDGE,
+    SLAVE_CANCEL_SLICE_ACKNOWLEDGE,
+    SLAVE_HEARTBEAT,
+    SLAVE_CHECKPOINT,
     CLIENT_NEW_MISSION,
     CLIENT_EXIT_ACKNOWLEDGE,
 }
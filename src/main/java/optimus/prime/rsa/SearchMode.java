@@ -0,0 +1,53 @@
+package optimus.prime.rsa;
+
+/**
+ * Strategies that can be used to search the primes for the
+ * factors of the public key. The search mode is chosen per mission.
+ */
+public enum SearchMode {
+    /*
+    PAIR_SCAN tests every pair (a, b) of primes, a slice defines the rows a
+    TRIAL_DIVISION tests every single prime p for dividing the public key,
+    a slice defines the primes p. This also finds keys where only one
+    factor is part of the primes.
+    COFACTOR_LOOKUP calculates the cofactor N / p for every single prime p and
+    looks it up in an index of the primes, a slice defines the primes p.
+    BATCH_GCD does not use any primes. It finds the public keys that share a
+    prime with another public key of the mission with the batch GCD over a
+    product tree of all public keys, a slice defines the public keys.
+    */
+    PAIR_SCAN,
+    TRIAL_DIVISION,
+    COFACTOR_LOOKUP,
+    BATCH_GCD;
+
+    /**
+     * Parse a search mode from a command line argument like "pair-scan"
+     *
+     * @param argument the argument to parse
+     * @return the {@link SearchMode}
+     * @throws IllegalArgumentException if there is no such search mode
+     */
+    public static SearchMode fromArgument(String argument) throws IllegalArgumentException {
+        return SearchMode.valueOf(argument.trim().toUpperCase().replace('-', '_'));
+    }
+
+    /**
+     * Check if a slice of this search mode contains one check per prime
+     * instead of one check per pair of primes
+     *
+     * @return true, if the search is linear in the number of primes
+     */
+    public boolean isLinear() {
+        return this != PAIR_SCAN;
+    }
+
+    /**
+     * Check if this search mode searches a list of primes
+     *
+     * @return true, if the mission needs a list of primes
+     */
+    public boolean usesPrimes() {
+        return this != BATCH_GCD;
+    }
+}
@@ -2,6 +2,7 @@ package optimus.prime.rsa.client;
 
 import optimus.prime.rsa.Message;
 import optimus.prime.rsa.MessageType;
+import optimus.prime.rsa.SearchMode;
 import optimus.prime.rsa.argumentparser.ArgumentParser;
 import optimus.prime.rsa.argumentparser.ArgumentBlueprint;
 import optimus.prime.rsa.payloads.*;
@@ -12,6 +13,7 @@ import java.math.BigInteger;
 import java.net.InetAddress;
 import java.net.Socket;
 import java.net.UnknownHostException;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -49,17 +51,24 @@ public class Main {
         ap.addArgument(
                 new ArgumentBlueprint(
                         "pub-rsa-key",
-                        true,
+                        false,
                         "defines the public-key to crack"
                 )
         );
         ap.addArgument(
                 new ArgumentBlueprint(
                         "cipher",
-                        true,
+                        false,
                         "defines encrypted payload to decrypt"
                 )
         );
+        ap.addArgument(
+                new ArgumentBlueprint(
+                        "keys",
+                        false,
+                        "defines a file with a public-key and a cipher per line to crack several keys at once"
+                )
+        );
         ap.addArgument(
                 new ArgumentBlueprint(
                         "primes",
@@ -68,6 +77,14 @@ public class Main {
                         "100"
                 )
         );
+        ap.addArgument(
+                new ArgumentBlueprint(
+                        "search-mode",
+                        false,
+                        "defines how the primes are searched (pair-scan, trial-division, cofactor-lookup or batch-gcd)",
+                        "pair-scan"
+                )
+        );
 
         // load the command line arguments
         ap.load(args);
@@ -81,14 +98,39 @@ public class Main {
         }
 
         int port = Integer.parseInt(ap.get("port"));
-        String cipher = ap.get("cipher");
-        List<BigInteger> primes = Utils.getPrimes(ap.get("primes"));
 
-        BigInteger pubKeyRsa;
+        SearchMode searchMode;
         try {
-            pubKeyRsa = new BigInteger(ap.get("pub-rsa-key"));
-        } catch (NumberFormatException ignored) {
-            System.err.println("Client - the public key is not valid");
+            searchMode = SearchMode.fromArgument(ap.get("search-mode"));
+        } catch (IllegalArgumentException ignored) {
+            System.err.println("Client - the search mode is not valid");
+            return;
+        }
+
+        // the batch GCD only compares the public keys with each other
+        List<BigInteger> primes = new ArrayList<>();
+        if (searchMode.usesPrimes()) {
+            primes = Utils.getPrimes(ap.get("primes"));
+        }
+
+        List<KeyPayload> keys = new ArrayList<>();
+        if (ap.get("pub-rsa-key") != null || ap.get("cipher") != null) {
+            if (ap.get("pub-rsa-key") == null || ap.get("cipher") == null) {
+                System.err.println("Client - the public key and the cipher have to be specified together");
+                return;
+            }
+            try {
+                keys.add(new KeyPayload(new BigInteger(ap.get("pub-rsa-key")), ap.get("cipher")));
+            } catch (NumberFormatException ignored) {
+                System.err.println("Client - the public key is not valid");
+                return;
+            }
+        }
+        if (ap.get("keys") != null) {
+            keys.addAll(Utils.getKeys(ap.get("keys")));
+        }
+        if (keys.isEmpty()) {
+            System.err.println("Client - either the public key and the cipher or the keys are required");
             return;
         }
 
@@ -119,9 +161,9 @@ public class Main {
                             if (!lostMaster) {
                                 System.out.println("Client - send new Mission");
                                 Message missionMessage = new Message(MessageType.CLIENT_NEW_MISSION, new MissionPayload(
-                                        pubKeyRsa,
-                                        cipher,
-                                        primes
+                                        keys,
+                                        primes,
+                                        searchMode
                                 ));
                                 objectOutputStream.writeObject(missionMessage);
                                 objectOutputStream.flush();
@@ -185,8 +227,11 @@ public class Main {
         } while (missionResponsePayload == null);
 
         // display the results
-        System.out.println("Client - The solution is " + missionResponsePayload.getSolution());
-        System.out.println("Client - The text is \"" + missionResponsePayload.getText() + "\"");
+        for (KeyResultPayload result : missionResponsePayload.getResults()) {
+            System.out.println("Client - The public key is " + result.getKey().getPubKeyRsa());
+            System.out.println("Client - The solution is " + result.getSolution());
+            System.out.println("Client - The text is \"" + result.getText() + "\"");
+        }
         System.out.println("Client - Bye :)");
     }
 }
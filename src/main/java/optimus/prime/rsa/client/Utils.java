@@ -1,5 +1,7 @@
 package optimus.prime.rsa.client;
 
+import optimus.prime.rsa.payloads.KeyPayload;
+
 import java.io.*;
 import java.math.BigInteger;
 import java.util.ArrayList;
@@ -53,4 +55,35 @@ public class Utils {
         // return primes as a list
         return new ArrayList<>(primes);
     }
+
+    /**
+     * Loads public keys and their ciphers
+     *
+     * @param keyList path to a file with a public key and a cipher per line, separated by a comma
+     * @return a {@link List} of {@link KeyPayload}s
+     */
+    public static List<KeyPayload> getKeys(String keyList) {
+        List<KeyPayload> keys = new ArrayList<>();
+
+        // read the file line by line and split every line into the public key and the cipher
+        try (BufferedReader br = new BufferedReader(new FileReader(keyList))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                String[] parts = line.split(",");
+                if (parts.length != 2) {
+                    System.err.println("Couldn't load keys - expected public key and cipher, got \"" + line + "\"");
+                    System.exit(1);
+                }
+                keys.add(new KeyPayload(new BigInteger(parts[0].trim()), parts[1].trim()));
+            }
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Couldn't load keys - " + e);
+            System.exit(1);
+        }
+
+        return keys;
+    }
 }
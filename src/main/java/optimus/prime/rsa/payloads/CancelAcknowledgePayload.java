@@ -0,0 +1,30 @@
+package optimus.prime.rsa.payloads;
+
+import java.io.Serializable;
+
+/**
+ * This payload can be used to acknowledge a cancel and
+ * send the time the workers needed to stop to the master
+ */
+@SuppressWarnings("ClassCanBeRecord")
+public class CancelAcknowledgePayload implements Serializable {
+    private final long quiesceNanos;
+
+    /**
+     * Create a new {@link CancelAcknowledgePayload}
+     *
+     * @param quiesceNanos the nanoseconds from receiving the cancel until every worker stopped
+     */
+    public CancelAcknowledgePayload(long quiesceNanos) {
+        this.quiesceNanos = quiesceNanos;
+    }
+
+    /**
+     * Get the time the workers needed to stop
+     *
+     * @return the nanoseconds from receiving the cancel until every worker stopped
+     */
+    public long getQuiesceNanos() {
+        return this.quiesceNanos;
+    }
+}
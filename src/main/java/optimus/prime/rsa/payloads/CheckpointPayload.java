@@ -0,0 +1,43 @@
+package optimus.prime.rsa.payloads;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * This payload can be used to report the rows of a slice
+ * that have already been inspected to the master
+ */
+@SuppressWarnings("ClassCanBeRecord")
+public class CheckpointPayload implements Serializable {
+    private final SlicePayload slice;
+    private final List<SlicePayload> completed;
+
+    /**
+     * Create a new {@link CheckpointPayload}
+     *
+     * @param slice the slice that the slave is working on
+     * @param completed the rows of the slice that have been inspected since the last checkpoint, sorted ascending
+     */
+    public CheckpointPayload(SlicePayload slice, List<SlicePayload> completed) {
+        this.slice = slice;
+        this.completed = completed;
+    }
+
+    /**
+     * Get the slice that the slave is working on
+     *
+     * @return the slice
+     */
+    public SlicePayload getSlice() {
+        return this.slice;
+    }
+
+    /**
+     * Get the rows of the slice that have been inspected since the last checkpoint
+     *
+     * @return the completed rows, sorted ascending
+     */
+    public List<SlicePayload> getCompleted() {
+        return this.completed;
+    }
+}
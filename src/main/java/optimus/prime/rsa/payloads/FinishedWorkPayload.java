@@ -0,0 +1,43 @@
+package optimus.prime.rsa.payloads;
+
+import java.io.Serializable;
+
+/**
+ * This payload can be used to report a finished slice and
+ * the throughput of the slave to the master
+ */
+@SuppressWarnings("ClassCanBeRecord")
+public class FinishedWorkPayload implements Serializable {
+    private final SlicePayload slice;
+    private final double checksPerSecond;
+
+    /**
+     * Create a new {@link FinishedWorkPayload}
+     *
+     * @param slice the slice that has been finished
+     * @param checksPerSecond the measured number of checks per second of the slave,
+     *                        0 if it is not known yet
+     */
+    public FinishedWorkPayload(SlicePayload slice, double checksPerSecond) {
+        this.slice = slice;
+        this.checksPerSecond = checksPerSecond;
+    }
+
+    /**
+     * Get the finished slice
+     *
+     * @return the slice that has been finished
+     */
+    public SlicePayload getSlice() {
+        return this.slice;
+    }
+
+    /**
+     * Get the throughput of the slave
+     *
+     * @return the number of checks per second, 0 if it is not known yet
+     */
+    public double getChecksPerSecond() {
+        return this.checksPerSecond;
+    }
+}
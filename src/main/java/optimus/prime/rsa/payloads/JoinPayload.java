@@ -4,20 +4,24 @@ import java.io.Serializable;
 
 /**
  * This payload can be used to request a join and
- * send the number of workers to the master
+ * send the number of workers and prefetched slices to the master
  */
 @SuppressWarnings("ClassCanBeRecord")
 public class JoinPayload implements Serializable {
     private final int workers;
+    private final int prefetchedSlices;
 
     /**
      * Create a new {@link JoinPayload}
      *
      * @param workers the number of workers that the {@link optimus.prime.rsa.server.communication.Slave}
      *                wants to join with
+     * @param prefetchedSlices the number of slices that the {@link optimus.prime.rsa.server.communication.Slave}
+     *                         wants to hold in addition to the slice it is working on
      */
-    public JoinPayload(int workers) {
+    public JoinPayload(int workers, int prefetchedSlices) {
         this.workers = workers;
+        this.prefetchedSlices = prefetchedSlices;
     }
 
     /**
@@ -28,4 +32,13 @@ public class JoinPayload implements Serializable {
     public int getWorkers() {
         return this.workers;
     }
+
+    /**
+     * Get the number of prefetched slices
+     *
+     * @return the number of slices to hold in addition to the slice being worked on
+     */
+    public int getPrefetchedSlices() {
+        return this.prefetchedSlices;
+    }
 }
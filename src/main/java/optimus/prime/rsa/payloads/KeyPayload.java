@@ -0,0 +1,47 @@
+package optimus.prime.rsa.payloads;
+
+import java.io.Serializable;
+import java.math.BigInteger;
+
+/**
+ * This payload describes a single public key of a mission
+ * together with the cipher that has been encrypted with it
+ */
+@SuppressWarnings("ClassCanBeRecord")
+public class KeyPayload implements Serializable {
+    private final BigInteger pubKeyRsa;
+    private final String cipher;
+
+    /**
+     * Create a new {@link KeyPayload}
+     *
+     * @param pubKeyRsa the public key, that has to be cracked
+     * @param cipher the cipher that has to be decrypted
+     */
+    public KeyPayload(BigInteger pubKeyRsa, String cipher) {
+        this.pubKeyRsa = pubKeyRsa;
+        this.cipher = cipher;
+    }
+
+    /**
+     * Get the public key
+     *
+     * @return the public key as a {@link BigInteger}
+     */
+    public BigInteger getPubKeyRsa() {
+        return this.pubKeyRsa;
+    }
+
+    /**
+     * Get the cipher
+     *
+     * @return the cipher as a {@link String}
+     */
+    public String getCipher() {
+        return this.cipher;
+    }
+
+    public String toString() {
+        return "Public key: " + this.pubKeyRsa + "; Cipher: " + this.cipher;
+    }
+}
@@ -0,0 +1,53 @@
+package optimus.prime.rsa.payloads;
+
+import java.io.Serializable;
+
+/**
+ * This payload holds the result of a mission for a single public key
+ */
+@SuppressWarnings("ClassCanBeRecord")
+public class KeyResultPayload implements Serializable {
+    private final KeyPayload key;
+    private final SolutionPayload solution;
+    private final String text;
+
+    /**
+     * Create a new {@link KeyResultPayload}
+     *
+     * @param key the {@link KeyPayload} of the result
+     * @param solution the {@link SolutionPayload}, or null if the key has not been cracked
+     * @param text the decrypted cipher, or null if the key has not been cracked
+     */
+    public KeyResultPayload(KeyPayload key, SolutionPayload solution, String text) {
+        this.key = key;
+        this.solution = solution;
+        this.text = text;
+    }
+
+    /**
+     * Get the key
+     *
+     * @return the {@link KeyPayload}
+     */
+    public KeyPayload getKey() {
+        return this.key;
+    }
+
+    /**
+     * Get the {@link SolutionPayload}
+     *
+     * @return the {@link SolutionPayload}, or null if the key has not been cracked
+     */
+    public SolutionPayload getSolution() {
+        return this.solution;
+    }
+
+    /**
+     * Get the decrypted cipher
+     *
+     * @return the decrypted cipher, or null if the key has not been cracked
+     */
+    public String getText() {
+        return this.text;
+    }
+}
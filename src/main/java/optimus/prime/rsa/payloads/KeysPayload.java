@@ -0,0 +1,30 @@
+package optimus.prime.rsa.payloads;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * This payload can be used to distribute the public keys of a mission
+ */
+@SuppressWarnings("ClassCanBeRecord")
+public class KeysPayload implements Serializable {
+    private final List<KeyPayload> keys;
+
+    /**
+     * Create a new {@link KeysPayload}
+     *
+     * @param keys the {@link List} of keys
+     */
+    public KeysPayload(List<KeyPayload> keys) {
+        this.keys = keys;
+    }
+
+    /**
+     * Get the keys
+     *
+     * @return the {@link List} of keys
+     */
+    public List<KeyPayload> getKeys() {
+        return this.keys;
+    }
+}
@@ -1,7 +1,10 @@
 package optimus.prime.rsa.payloads;
 
+import optimus.prime.rsa.SearchMode;
+
 import java.io.Serializable;
 import java.math.BigInteger;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -9,9 +12,9 @@ import java.util.List;
  */
 @SuppressWarnings("ClassCanBeRecord")
 public class MissionPayload implements Serializable {
-    private final String cipher;
+    private final List<KeyPayload> keys;
     private final List<BigInteger> primes;
-    private final BigInteger pubKeyRsa;
+    private final SearchMode searchMode;
 
     /**
      * Specify the details of a new {@link MissionPayload}
@@ -21,18 +24,42 @@ public class MissionPayload implements Serializable {
      * @param primes the list of primes to use for attempting the crack
      */
     public MissionPayload(BigInteger pubKeyRsa, String cipher, List<BigInteger> primes) {
-        this.cipher = cipher;
+        this(pubKeyRsa, cipher, primes, SearchMode.PAIR_SCAN);
+    }
+
+    /**
+     * Specify the details of a new {@link MissionPayload}
+     *
+     * @param pubKeyRsa the public key, that has to be cracked
+     * @param cipher the cipher that has to be decrypted
+     * @param primes the list of primes to use for attempting the crack
+     * @param searchMode the {@link SearchMode} to use for attempting the crack
+     */
+    public MissionPayload(BigInteger pubKeyRsa, String cipher, List<BigInteger> primes, SearchMode searchMode) {
+        this(Collections.singletonList(new KeyPayload(pubKeyRsa, cipher)), primes, searchMode);
+    }
+
+    /**
+     * Specify the details of a new {@link MissionPayload} with several keys,
+     * which are all cracked in a single pass over the primes
+     *
+     * @param keys the keys that have to be cracked
+     * @param primes the list of primes to use for attempting the crack
+     * @param searchMode the {@link SearchMode} to use for attempting the crack
+     */
+    public MissionPayload(List<KeyPayload> keys, List<BigInteger> primes, SearchMode searchMode) {
+        this.keys = keys;
         this.primes = primes;
-        this.pubKeyRsa = pubKeyRsa;
+        this.searchMode = searchMode;
     }
 
     /**
-     * Get the cipher
+     * Get the keys
      *
-     * @return the cipher of the mission as a {@link String}
+     * @return the keys of the mission as a {@link List}
      */
-    public String getCipher() {
-        return this.cipher;
+    public List<KeyPayload> getKeys() {
+        return this.keys;
     }
 
     /**
@@ -45,11 +72,11 @@ public class MissionPayload implements Serializable {
     }
 
     /**
-     * Get the public key
+     * Get the search mode
      *
-     * @return the public key of the mission as a {@link BigInteger}
+     * @return the {@link SearchMode} of the mission
      */
-    public BigInteger getPubKeyRsa() {
-        return this.pubKeyRsa;
+    public SearchMode getSearchMode() {
+        return this.searchMode;
     }
 }
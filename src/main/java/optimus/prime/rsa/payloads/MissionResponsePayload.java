@@ -1,41 +1,30 @@
 package optimus.prime.rsa.payloads;
 
 import java.io.Serializable;
+import java.util.List;
 
 /**
- * This payload can be used to inform the client about a found solution
+ * This payload can be used to inform the client about the found solutions
  */
 @SuppressWarnings("ClassCanBeRecord")
 public class MissionResponsePayload implements Serializable {
-    private final SolutionPayload solution;
-    private final String text;
+    private final List<KeyResultPayload> results;
 
     /**
      * Create a new {@link MissionResponsePayload}
      *
-     * @param solution the {@link SolutionPayload}
-     * @param text the decrypted cipher
+     * @param results a {@link KeyResultPayload} for every key of the mission
      */
-    public MissionResponsePayload(SolutionPayload solution, String text) {
-        this.solution = solution;
-        this.text = text;
+    public MissionResponsePayload(List<KeyResultPayload> results) {
+        this.results = results;
     }
 
     /**
-     * Get the {@link SolutionPayload}
+     * Get the results
      *
-     * @return the {@link SolutionPayload}
+     * @return a {@link KeyResultPayload} for every key of the mission
      */
-    public SolutionPayload getSolution() {
-        return this.solution;
-    }
-
-    /**
-     * Get the decrypted cipher
-     *
-     * @return the decrypted cipher
-     */
-    public String getText() {
-        return this.text;
+    public List<KeyResultPayload> getResults() {
+        return this.results;
     }
 }
@@ -1,42 +1,43 @@
 package optimus.prime.rsa.payloads;
 
 import java.io.Serializable;
-import java.util.Queue;
 
 /**
- * This payload can be used to distribute the progress
+ * This payload can be used to distribute the progress. Only the rows
+ * that are done are part of the progress, every other row has to be
+ * done again if the master dies.
  */
 @SuppressWarnings("ClassCanBeRecord")
 public class ProgressPayload implements Serializable {
-    private final Queue<SlicePayload> lostSlices;
-    private final int currentSliceStart;
+    private final int size;
+    private final int[] done;
 
     /**
      * Create a new {@link ProgressPayload}
      *
-     * @param lostSlices slices that are being lost while a slave disconnected, or something similar
-     * @param currentSliceStart the index that the next slice starts with
+     * @param size the number of rows of the search space
+     * @param done the first and the last row of every range of done rows, sorted ascending
      */
-    public ProgressPayload(Queue<SlicePayload> lostSlices, int currentSliceStart) {
-        this.lostSlices = lostSlices;
-        this.currentSliceStart = currentSliceStart;
+    public ProgressPayload(int size, int[] done) {
+        this.size = size;
+        this.done = done;
     }
 
     /**
-     * Get the lost slices {@link Queue}
+     * Get the number of rows of the search space
      *
-     * @return the lost slices {@link Queue}
+     * @return the number of rows
      */
-    public Queue<SlicePayload> getLostSlices() {
-        return lostSlices;
+    public int getSize() {
+        return this.size;
     }
 
     /**
-     * Get the index that the next slice starts with
+     * Get the ranges of done rows
      *
-     * @return index that the next slice starts with
+     * @return the first and the last row of every range of done rows, sorted ascending
      */
-    public int getCurrentSliceStart() {
-        return this.currentSliceStart;
+    public int[] getDone() {
+        return this.done;
     }
 }
@@ -0,0 +1,21 @@
+package optimus.prime.rsa.payloads;
+
+import optimus.prime.rsa.SearchMode;
+
+import java.io.Serializable;
+
+/**
+ * This payload can be used to distribute the search mode of the mission
+ */
+@SuppressWarnings("ClassCanBeRecord")
+public class SearchModePayload implements Serializable {
+    private final SearchMode searchMode;
+
+    public SearchModePayload(SearchMode searchMode) {
+        this.searchMode = searchMode;
+    }
+
+    public SearchMode getSearchMode() {
+        return this.searchMode;
+    }
+}
@@ -1,6 +1,7 @@
 package optimus.prime.rsa.payloads;
 
 import java.io.Serializable;
+import java.util.Objects;
 
 /**
  * This is a slice that defines the beginning and the end of a part
@@ -24,6 +25,23 @@ public class SlicePayload implements Serializable {
         return this.end;
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SlicePayload)) {
+            return false;
+        }
+        SlicePayload slice = (SlicePayload) o;
+        return this.start == slice.start && this.end == slice.end;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.start, this.end);
+    }
+
     public String toString() {
         return "[" + this.start + ":" + this.end + "]";
     }
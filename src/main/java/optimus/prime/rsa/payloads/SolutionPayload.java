@@ -24,6 +24,15 @@ public class SolutionPayload implements Serializable {
         return prime2;
     }
 
+    /**
+     * Get the public key that is cracked by this solution
+     *
+     * @return the product of both primes
+     */
+    public BigInteger getPubKeyRsa() {
+        return this.prime1.multiply(this.prime2);
+    }
+
     public String toString() {
         return "Prime1: " + this.prime1 + "; Prime2: " + this.prime2;
     }
@@ -0,0 +1,55 @@
+package optimus.prime.rsa.payloads;
+
+import java.io.Serializable;
+
+/**
+ * This payload can be used to answer a split request or the cancel of a
+ * slice. The slice that was asked for is split into the part that the slave
+ * keeps and the tail that it gives up.
+ */
+@SuppressWarnings("ClassCanBeRecord")
+public class SplitPayload implements Serializable {
+    private final SlicePayload slice;
+    private final SlicePayload kept;
+    private final SlicePayload tail;
+
+    /**
+     * Create a new {@link SplitPayload}
+     *
+     * @param slice the slice that should have been split
+     * @param kept the part of the slice that the slave keeps working on, null if it keeps nothing
+     * @param tail the part of the slice that the slave gives up, null if it gives up nothing
+     */
+    public SplitPayload(SlicePayload slice, SlicePayload kept, SlicePayload tail) {
+        this.slice = slice;
+        this.kept = kept;
+        this.tail = tail;
+    }
+
+    /**
+     * Get the slice that should have been split
+     *
+     * @return the slice of the split request
+     */
+    public SlicePayload getSlice() {
+        return this.slice;
+    }
+
+    /**
+     * Get the part of the slice that the slave keeps working on
+     *
+     * @return the kept part, or null if the slave keeps nothing
+     */
+    public SlicePayload getKept() {
+        return this.kept;
+    }
+
+    /**
+     * Get the part of the slice that the slave gives up
+     *
+     * @return the tail, or null if the slave gives up nothing
+     */
+    public SlicePayload getTail() {
+        return this.tail;
+    }
+}
@@ -1,5 +1,6 @@
 package optimus.prime.rsa.server;
 
+import optimus.prime.rsa.SearchMode;
 import optimus.prime.rsa.argumentparser.ArgumentParser;
 import optimus.prime.rsa.argumentparser.ArgumentBlueprint;
 import optimus.prime.rsa.server.communication.ClientHandler;
@@ -9,12 +10,13 @@ import optimus.prime.rsa.server.config.MasterConfiguration;
 import optimus.prime.rsa.server.config.NetworkConfiguration;
 import optimus.prime.rsa.server.config.SlaveConfiguration;
 import optimus.prime.rsa.server.config.StaticConfiguration;
+import optimus.prime.rsa.server.crypto.PairKernel;
+import optimus.prime.rsa.server.crypto.WorkerStatistics;
 
-import java.math.BigInteger;
 import java.net.InetAddress;
 import java.net.SocketException;
 import java.net.UnknownHostException;
-import java.util.LinkedList;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * class to start the server from
@@ -22,6 +24,7 @@ import java.util.LinkedList;
 public class Main {
 
     private static boolean LOST_MASTER = false;
+    private static boolean DISCONNECTED = false;
 
     /**
      * Main loop for a server
@@ -51,6 +54,46 @@ public class Main {
                         "150000"
                 )
         );
+        ap.addArgument(
+                new ArgumentBlueprint(
+                        "master-millis-per-slice",
+                        false,
+                        "master-only: defines the duration of a slice on a slave with a measured throughput, 0 to disable",
+                        "2000"
+                )
+        );
+        ap.addArgument(
+                new ArgumentBlueprint(
+                        "master-backup-factor",
+                        false,
+                        "master-only: defines how many times longer than expected a slice may take before a backup is started, 0 to disable",
+                        "3"
+                )
+        );
+        ap.addArgument(
+                new ArgumentBlueprint(
+                        "master-lease-millis",
+                        false,
+                        "master-only: defines how long a slave may be silent before its slices are given to other slaves, 0 to disable",
+                        "10000"
+                )
+        );
+        ap.addArgument(
+                new ArgumentBlueprint(
+                        "master-broadcast-millis",
+                        false,
+                        "master-only: defines how long the messages for the slaves are collected before they are broadcast",
+                        "5"
+                )
+        );
+        ap.addArgument(
+                new ArgumentBlueprint(
+                        "master-broadcast-queue",
+                        false,
+                        "master-only: defines how many broadcasts may wait for a slave before the slave is dropped",
+                        "256"
+                )
+        );
         ap.addArgument(
                 new ArgumentBlueprint(
                         "intra-port",
@@ -84,6 +127,33 @@ public class Main {
                 )
         );
 
+        ap.addArgument(
+                new ArgumentBlueprint(
+                        "prefetch-slices",
+                        false,
+                        "defines the number of slices a slave holds in advance",
+                        "1"
+                )
+        );
+
+        ap.addArgument(
+                new ArgumentBlueprint(
+                        "heartbeat-millis",
+                        false,
+                        "defines the interval of the heartbeats a slave sends to the master",
+                        "1000"
+                )
+        );
+
+        ap.addArgument(
+                new ArgumentBlueprint(
+                        "engine",
+                        false,
+                        "defines the kernel of the pair scan (scalar or vector)",
+                        PairKernel.SCALAR
+                )
+        );
+
         // load the command line arguments
         ap.load(args);
 
@@ -113,8 +183,28 @@ public class Main {
         StaticConfiguration.CLIENT_PORT = Integer.parseInt(ap.get("client-port"));
         // workers key
         SlaveConfiguration.WORKERS = Integer.parseInt(ap.get("workers"));
+        // prefetch-slices key
+        SlaveConfiguration.PREFETCHED_SLICES = Math.max(Integer.parseInt(ap.get("prefetch-slices")), 0);
+        // heartbeat-millis key
+        SlaveConfiguration.HEARTBEAT_MILLIS = Math.max(Long.parseLong(ap.get("heartbeat-millis")), 1);
+        // engine key
+        SlaveConfiguration.PAIR_KERNEL = PairKernel.forEngine(ap.get("engine"));
+        if (!SlaveConfiguration.PAIR_KERNEL.getName().equals(ap.get("engine"))) {
+            Utils.err("Main          - the engine \"" + ap.get("engine") + "\" is not available, using the " + SlaveConfiguration.PAIR_KERNEL.getName() + " engine");
+        }
+        System.out.println("Main          - using the " + SlaveConfiguration.PAIR_KERNEL.getName() + " engine");
         // master-slice-size key
         MasterConfiguration.MASTER_CHECKS_PER_SLICE_PER_WORKER = Long.parseLong(ap.get("master-checks-per-slice-per-worker"));
+        // master-millis-per-slice key
+        MasterConfiguration.MASTER_MILLIS_PER_SLICE = Long.parseLong(ap.get("master-millis-per-slice"));
+        // master-backup-factor key
+        MasterConfiguration.MASTER_BACKUP_FACTOR = Double.parseDouble(ap.get("master-backup-factor"));
+        // master-lease-millis key
+        MasterConfiguration.MASTER_LEASE_MILLIS = Math.max(Integer.parseInt(ap.get("master-lease-millis")), 0);
+        // master-broadcast-millis key
+        MasterConfiguration.MASTER_BROADCAST_MILLIS = Math.max(Long.parseLong(ap.get("master-broadcast-millis")), 0);
+        // master-broadcast-queue key
+        MasterConfiguration.MASTER_BROADCAST_QUEUE = Math.max(Integer.parseInt(ap.get("master-broadcast-queue")), 1);
         // max-slaves key
         MasterConfiguration.MAX_INCOMING_SLAVES = Integer.parseInt(ap.get("max-slaves"));
 
@@ -143,14 +233,19 @@ public class Main {
             }
 
             // resetting everything to start all over again
-            MasterConfiguration.solution = null;
+            MasterConfiguration.solutions = new ConcurrentHashMap<>();
             MasterConfiguration.startMillis = 0;
-            MasterConfiguration.lostSlices = new LinkedList<>();
-            MasterConfiguration.currentSliceStart = 0;
+            MasterConfiguration.ledger = null;
+            MasterConfiguration.progress = null;
 
-            StaticConfiguration.PUB_RSA_KEY = BigInteger.ZERO;
+            StaticConfiguration.keys = null;
             StaticConfiguration.primes = null;
-            StaticConfiguration.CIPHER = "";
+            StaticConfiguration.SEARCH_MODE = SearchMode.PAIR_SCAN;
+
+            SlaveConfiguration.primeStore = null;
+            SlaveConfiguration.keyRing = null;
+            SlaveConfiguration.productTree = null;
+            WorkerStatistics.reset();
 
             // if this host is a slave wait a little for the master
             try {
@@ -230,6 +325,17 @@ public class Main {
                 if (slaveThread != null) {
                     slaveThread.join();
                 }
+                // a slave that has been disconnected joins the master again,
+                // the master is only lost if the slave cannot reach it anymore
+                while (DISCONNECTED && !LOST_MASTER) {
+                    DISCONNECTED = false;
+                    System.out.println("Main          - Joining the master " + NetworkConfiguration.masterAddress.getHostAddress() + " again ...");
+                    Slave slave = new Slave();
+                    slaveThread = new Thread(slave);
+                    slaveThread.start();
+                    slaveThread.join();
+                }
+                DISCONNECTED = false;
                 if (masterThread != null) {
                     masterThread.join();
                 }
@@ -246,4 +352,12 @@ public class Main {
     public synchronized static void reportMasterLost() {
         LOST_MASTER = true;
     }
+
+    /**
+     * Endpoint for the slave to use, if the connection to the master is gone,
+     * e.g. because the master evicted the slave. The slave joins the master again.
+     */
+    public synchronized static void reportDisconnected() {
+        DISCONNECTED = true;
+    }
 }
@@ -0,0 +1,296 @@
+package optimus.prime.rsa.server;
+
+import optimus.prime.rsa.payloads.ProgressPayload;
+import optimus.prime.rsa.payloads.SlicePayload;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * This class keeps track of the rows of the search space of a mission. Every row
+ * is pending, in flight or done. The rows of every state are stored as disjoint
+ * ranges, ordered by their start. Adjacent ranges are merged, so the ledger stays
+ * small even if the slices have been split, lost and checkpointed many times.
+ * Every update only touches the ranges that overlap the updated rows, the ranges
+ * are found in logarithmic time. Only the done rows are distributed to the slaves,
+ * because the rows in flight are lost as well when the master dies.
+ * The class is not thread-safe, it is only used by the thread of the master
+ * that handles the messages of all slaves.
+ */
+public class SliceLedger {
+
+    private final int size;
+    // the rows that have not been handed out, or have been handed back
+    private final Ranges pending = new Ranges();
+    // the rows that have been handed out and are neither done nor handed back
+    private final Ranges inFlight = new Ranges();
+    // the rows that have been inspected
+    private final Ranges done = new Ranges();
+
+    /**
+     * Create a new {@link SliceLedger} with every row pending
+     *
+     * @param size the number of rows of the search space
+     */
+    public SliceLedger(int size) {
+        this.size = size;
+        this.pending.add(0, size - 1);
+    }
+
+    /**
+     * Create a new {@link SliceLedger} from the progress of a previous master.
+     * The rows that were in flight are pending again.
+     *
+     * @param progress the {@link ProgressPayload} of the previous master
+     */
+    public SliceLedger(ProgressPayload progress) {
+        this(progress.getSize());
+        int[] bounds = progress.getDone();
+        for (int i = 0; i + 1 < bounds.length; i += 2) {
+            this.markDone(new SlicePayload(bounds[i], bounds[i + 1]));
+        }
+    }
+
+    /**
+     * Get the number of rows of the search space
+     *
+     * @return the number of rows
+     */
+    public int getSize() {
+        return this.size;
+    }
+
+    /**
+     * Take the next slice from the first pending rows. The rows that have been
+     * handed back are handed out before the rows behind them.
+     *
+     * @param endOf calculates the last row of the slice from the first row and the last row that is available
+     * @return the slice, or null if there are no pending rows
+     */
+    public SlicePayload take(IntBinaryOperator endOf) {
+        Map.Entry<Integer, Integer> range = this.pending.first();
+        if (range == null) {
+            return null;
+        }
+        int start = range.getKey();
+        int end = Math.min(Math.max(endOf.applyAsInt(start, range.getValue()), start), range.getValue());
+        this.pending.remove(start, end);
+        this.inFlight.add(start, end);
+        return new SlicePayload(start, end);
+    }
+
+    /**
+     * Mark rows as done, they are neither pending nor in flight anymore
+     *
+     * @param slice the {@link SlicePayload} with the rows that have been inspected
+     */
+    public void markDone(SlicePayload slice) {
+        int start = Math.max(slice.getStart(), 0);
+        int end = Math.min(slice.getEnd(), this.size - 1);
+        if (start > end) {
+            return;
+        }
+        this.pending.remove(start, end);
+        this.inFlight.remove(start, end);
+        this.done.add(start, end);
+    }
+
+    /**
+     * Hand back the rows of a slice, because the slave has been lost or gave them up.
+     * The rows of the slice that are done stay done.
+     *
+     * @param slice the {@link SlicePayload} that has been taken before
+     * @return the rows that are pending again, in ascending order
+     */
+    public List<SlicePayload> reclaim(SlicePayload slice) {
+        this.inFlight.remove(slice.getStart(), slice.getEnd());
+        List<SlicePayload> missing = this.getMissing(slice);
+        for (SlicePayload rows : missing) {
+            this.pending.add(rows.getStart(), rows.getEnd());
+        }
+        return missing;
+    }
+
+    /**
+     * Get the rows of a slice that are done
+     *
+     * @param slice the {@link SlicePayload}
+     * @return the rows that are done, in ascending order
+     */
+    public List<SlicePayload> getDone(SlicePayload slice) {
+        List<SlicePayload> rows = new ArrayList<>();
+        for (Map.Entry<Integer, Integer> range : this.done.overlapping(slice.getStart(), slice.getEnd()).entrySet()) {
+            rows.add(new SlicePayload(Math.max(range.getKey(), slice.getStart()), Math.min(range.getValue(), slice.getEnd())));
+        }
+        return rows;
+    }
+
+    /**
+     * Get the rows of a slice that are not done
+     *
+     * @param slice the {@link SlicePayload}
+     * @return the rows that are not done, in ascending order
+     */
+    public List<SlicePayload> getMissing(SlicePayload slice) {
+        List<SlicePayload> rows = new ArrayList<>();
+        int next = slice.getStart();
+        for (Map.Entry<Integer, Integer> range : this.done.overlapping(slice.getStart(), slice.getEnd()).entrySet()) {
+            if (range.getKey() > next) {
+                rows.add(new SlicePayload(next, range.getKey() - 1));
+            }
+            next = Math.max(next, range.getValue() + 1);
+        }
+        if (next <= slice.getEnd()) {
+            rows.add(new SlicePayload(next, slice.getEnd()));
+        }
+        return rows;
+    }
+
+    /**
+     * Get the number of checks of the pending rows
+     *
+     * @param linear true, if every row is one check, false for the pair scan
+     * @return the number of checks
+     */
+    public long getPendingChecks(boolean linear) {
+        long checks = 0;
+        for (Map.Entry<Integer, Integer> range : this.pending.ranges.entrySet()) {
+            checks += Utils.getChecks(new SlicePayload(range.getKey(), range.getValue()), this.size, linear);
+        }
+        return checks;
+    }
+
+    /**
+     * Check if there are rows that have not been handed out
+     *
+     * @return true, if at least one row is pending
+     */
+    public boolean hasPending() {
+        return !this.pending.ranges.isEmpty();
+    }
+
+    /**
+     * Check if there are rows in flight
+     *
+     * @return true, if at least one slave works on rows that are not done yet
+     */
+    public boolean hasInFlight() {
+        return !this.inFlight.ranges.isEmpty();
+    }
+
+    /**
+     * Check if every row is done
+     *
+     * @return true, if every row of the search space is done
+     */
+    public boolean isDone() {
+        return this.done.rows >= this.size;
+    }
+
+    /**
+     * Get the progress in a compact form, that is distributed to the slaves
+     *
+     * @return the {@link ProgressPayload} with the done rows
+     */
+    public ProgressPayload getProgress() {
+        int[] bounds = new int[this.done.ranges.size() * 2];
+        int i = 0;
+        for (Map.Entry<Integer, Integer> range : this.done.ranges.entrySet()) {
+            bounds[i++] = range.getKey();
+            bounds[i++] = range.getValue();
+        }
+        return new ProgressPayload(this.size, bounds);
+    }
+
+    /**
+     * Disjoint ranges of rows, adjacent ranges are merged
+     */
+    private static class Ranges {
+
+        // the last row of every range by its first row
+        private final NavigableMap<Integer, Integer> ranges = new TreeMap<>();
+        private long rows = 0;
+
+        /**
+         * Add rows. The ranges that overlap or touch the rows are merged with them.
+         *
+         * @param start the first row
+         * @param end the last row
+         */
+        private void add(int start, int end) {
+            if (start > end) {
+                return;
+            }
+            // a range that starts before the rows and reaches them
+            Map.Entry<Integer, Integer> lower = this.ranges.floorEntry(start);
+            if (lower != null && lower.getValue() >= start - 1) {
+                start = lower.getKey();
+            }
+            // every range that starts inside the rows or right behind them
+            NavigableMap<Integer, Integer> merged = this.ranges.subMap(start, true, end + 1, true);
+            for (Map.Entry<Integer, Integer> range : merged.entrySet()) {
+                end = Math.max(end, range.getValue());
+                this.rows -= range.getValue() - range.getKey() + 1L;
+            }
+            merged.clear();
+            this.ranges.put(start, end);
+            this.rows += end - start + 1L;
+        }
+
+        /**
+         * Remove rows. The ranges that reach beyond the rows are cut.
+         *
+         * @param start the first row
+         * @param end the last row
+         */
+        private void remove(int start, int end) {
+            NavigableMap<Integer, Integer> overlapping = this.overlapping(start, end);
+            if (overlapping.isEmpty()) {
+                return;
+            }
+            int first = overlapping.firstKey();
+            int last = overlapping.lastEntry().getValue();
+            for (Map.Entry<Integer, Integer> range : overlapping.entrySet()) {
+                this.rows -= range.getValue() - range.getKey() + 1L;
+            }
+            overlapping.clear();
+            // the parts in front of and behind the rows are kept
+            if (first < start) {
+                this.ranges.put(first, start - 1);
+                this.rows += start - first;
+            }
+            if (last > end) {
+                this.ranges.put(end + 1, last);
+                this.rows += last - end;
+            }
+        }
+
+        /**
+         * Get the ranges that overlap rows
+         *
+         * @param start the first row
+         * @param end the last row
+         * @return a view of the ranges by their first row, they may reach beyond the rows
+         */
+        private NavigableMap<Integer, Integer> overlapping(int start, int end) {
+            Integer first = this.ranges.floorKey(start);
+            if (first == null || this.ranges.get(first) < start) {
+                first = start;
+            }
+            return this.ranges.subMap(first, true, end, true);
+        }
+
+        /**
+         * Get the range with the smallest rows
+         *
+         * @return the first range, or null if there are no rows
+         */
+        private Map.Entry<Integer, Integer> first() {
+            return this.ranges.firstEntry();
+        }
+    }
+}
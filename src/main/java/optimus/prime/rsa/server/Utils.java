@@ -61,6 +61,117 @@ public class Utils {
         return slices;
     }
 
+    /**
+     * This method splits up a major slice of the pair scan into multiple minor slices
+     * with the same number of pairs. The row a has (numberOfPrimes - a - 1) pairs,
+     * so the minor slices at the beginning of the major slice have fewer rows than
+     * the ones at the end.
+     *
+     * @param majorSlice the slice that has to be split up
+     * @param n number minor of slices
+     * @param numberOfPrimes the number of primes of the pair scan
+     * @return returns a {@link java.util.Queue} of minor slices
+     */
+    public static Queue<SlicePayload> getNSlices(SlicePayload majorSlice, int n, int numberOfPrimes) {
+
+        int start = majorSlice.getStart();
+        int end = majorSlice.getEnd();
+
+        Queue<SlicePayload> slices = new LinkedList<>();
+        // calculate how many pairs each minor slice has
+        double pairsBeforeStart = pairsBefore(start, numberOfPrimes);
+        double stepSize = (pairsBefore(end + 1, numberOfPrimes) - pairsBeforeStart) / n;
+
+        double desiredPairs = pairsBeforeStart;
+        int currentStart = start;
+        int currentEnd;
+
+        do {
+            desiredPairs += stepSize;
+
+            if (--n == 0) {
+                currentEnd = end;
+            } else {
+                // The number of pairs before the row a is a * (2N - 1 - a) / 2,
+                // solving it for a gives the first row of the next minor slice.
+                double b = 2.0 * numberOfPrimes - 1;
+                double nextStart = (b - Math.sqrt(Math.max(b * b - 8 * desiredPairs, 0))) / 2;
+                currentEnd = (int) Math.round(nextStart) - 1;
+                // current end is at least at current start
+                currentEnd = Math.max(currentEnd, currentStart);
+                // current end must be smaller or equal to end
+                currentEnd = Math.min(currentEnd, end);
+            }
+
+            // create the new slice and add it to the queue
+            SlicePayload slice = new SlicePayload(currentStart, currentEnd);
+            slices.add(slice);
+
+            // the next start should be one behind the current end
+            currentStart = currentEnd + 1;
+        } while (currentEnd != end); // do it as long as the end is not reached
+
+        // return the queue of slices
+        return slices;
+    }
+
+    /**
+     * This method calculates the number of checks that a slice consists of
+     *
+     * @param slice the slice
+     * @param numberOfPrimes the number of primes of the pair scan
+     * @param linear true, if every index of the slice is one check, false for the pair scan
+     * @return the number of checks of the slice
+     */
+    public static long getChecks(SlicePayload slice, int numberOfPrimes, boolean linear) {
+        if (linear) {
+            return slice.getEnd() - slice.getStart() + 1L;
+        }
+        return Math.round(pairsBefore(slice.getEnd() + 1, numberOfPrimes) - pairsBefore(slice.getStart(), numberOfPrimes));
+    }
+
+    /**
+     * This method adds a range of rows to a sorted list of ranges. Ranges that
+     * overlap or touch the new range are merged with it, so the list stays sorted
+     * and the ranges stay disjoint.
+     *
+     * @param ranges the sorted list of disjoint ranges
+     * @param range the range to add
+     */
+    public static void addRange(List<SlicePayload> ranges, SlicePayload range) {
+        int start = range.getStart();
+        int end = range.getEnd();
+        ListIterator<SlicePayload> it = ranges.listIterator();
+        while (it.hasNext()) {
+            SlicePayload current = it.next();
+            if (current.getEnd() + 1 < start) {
+                // completely before the new range
+                continue;
+            }
+            if (current.getStart() > end + 1) {
+                // completely behind the new range, insert the range in front of it
+                it.previous();
+                break;
+            }
+            // overlaps or touches the new range
+            start = Math.min(start, current.getStart());
+            end = Math.max(end, current.getEnd());
+            it.remove();
+        }
+        it.add(new SlicePayload(start, end));
+    }
+
+    /**
+     * This method calculates the number of pairs in the rows before a row of the pair scan
+     *
+     * @param row the row
+     * @param numberOfPrimes the number of primes of the pair scan
+     * @return the number of pairs in the rows from 0 to row - 1
+     */
+    private static double pairsBefore(int row, int numberOfPrimes) {
+        return row * (2.0 * numberOfPrimes - 1 - row) / 2;
+    }
+
     /**
      * This method returns all ip-addresses of this host
      *
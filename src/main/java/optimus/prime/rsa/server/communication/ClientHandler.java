@@ -4,9 +4,12 @@ import optimus.prime.rsa.ConsoleColors;
 import optimus.prime.rsa.Message;
 import optimus.prime.rsa.MessageType;
 import optimus.prime.rsa.payloads.HostsPayload;
+import optimus.prime.rsa.payloads.KeyPayload;
+import optimus.prime.rsa.payloads.KeyResultPayload;
 import optimus.prime.rsa.payloads.MasterAddressPayload;
 import optimus.prime.rsa.payloads.MissionPayload;
 import optimus.prime.rsa.payloads.MissionResponsePayload;
+import optimus.prime.rsa.payloads.SolutionPayload;
 import optimus.prime.rsa.server.Utils;
 import optimus.prime.rsa.server.config.MasterConfiguration;
 import optimus.prime.rsa.server.config.NetworkConfiguration;
@@ -14,8 +17,9 @@ import optimus.prime.rsa.server.config.StaticConfiguration;
 import optimus.prime.rsa.server.crypto.RSAHelper;
 
 import java.io.*;
-import java.math.BigInteger;
 import java.net.*;
+import java.util.ArrayList;
+import java.util.List;
 
 public class ClientHandler implements Runnable {
 
@@ -164,17 +168,18 @@ public class ClientHandler implements Runnable {
                 switch (message.getType()) {
                     case CLIENT_NEW_MISSION:
                         // client wants to submit a new mission
-                        if (StaticConfiguration.CIPHER.equals("") && StaticConfiguration.PUB_RSA_KEY.equals(BigInteger.ZERO) && StaticConfiguration.primes == null) {
+                        if (StaticConfiguration.keys == null && StaticConfiguration.primes == null) {
                             log("Message received - " + message.getType());
 
                             MissionPayload missionPayload = (MissionPayload) message.getPayload();
-                            StaticConfiguration.CIPHER = missionPayload.getCipher();
-                            StaticConfiguration.PUB_RSA_KEY = missionPayload.getPubKeyRsa();
+                            StaticConfiguration.SEARCH_MODE = missionPayload.getSearchMode();
                             StaticConfiguration.primes = missionPayload.getPrimes();
+                            // the keys have to be set last, because they start the mission
+                            StaticConfiguration.keys = missionPayload.getKeys();
 
-                            log("cipher: " + StaticConfiguration.CIPHER);
-                            log("public key: " + StaticConfiguration.PUB_RSA_KEY);
+                            StaticConfiguration.keys.forEach(k -> log("key: " + k));
                             log("primes length: " + StaticConfiguration.primes.size());
+                            log("search mode: " + StaticConfiguration.SEARCH_MODE);
                             log("doing " + MasterConfiguration.MASTER_CHECKS_PER_SLICE_PER_WORKER + " checks per slice per worker");
                         } else {
                             // the master is already busy --> tell the client
@@ -202,19 +207,24 @@ public class ClientHandler implements Runnable {
     }
 
     /**
-     * inform the client about the solution
+     * inform the client about the solutions
      */
     public synchronized void sendSolution() {
-        log("Sending solution " + MasterConfiguration.solution + " to the client.");
+        log("Sending " + MasterConfiguration.solutions.size() + " of " + StaticConfiguration.keys.size() + " solutions to the client.");
 
         // gathering all information to send
-        String text = null;
-        // if there is a solution decrypt the cipher
-        if (MasterConfiguration.solution != null) {
-            RSAHelper rsaHelper = new RSAHelper();
-            text = rsaHelper.decrypt(MasterConfiguration.solution.getPrime1().toString(), MasterConfiguration.solution.getPrime2().toString(), StaticConfiguration.CIPHER);
+        RSAHelper rsaHelper = new RSAHelper();
+        List<KeyResultPayload> results = new ArrayList<>();
+        for (KeyPayload key : StaticConfiguration.keys) {
+            SolutionPayload solution = MasterConfiguration.solutions.get(key.getPubKeyRsa());
+            String text = null;
+            // if there is a solution decrypt the cipher
+            if (solution != null) {
+                text = rsaHelper.decrypt(solution.getPrime1().toString(), solution.getPrime2().toString(), key.getCipher());
+            }
+            results.add(new KeyResultPayload(key, solution, text));
         }
-        MissionResponsePayload missionResponsePayload = new MissionResponsePayload(MasterConfiguration.solution, text);
+        MissionResponsePayload missionResponsePayload = new MissionResponsePayload(results);
         Message solutionMessage = new Message(MessageType.MASTER_SOLUTION_FOUND, missionResponsePayload);
 
         // send the solution
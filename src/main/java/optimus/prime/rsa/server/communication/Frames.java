@@ -0,0 +1,80 @@
+package optimus.prime.rsa.server.communication;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+
+/**
+ * The framing of the messages between the master and the slaves. Every object
+ * is serialized on its own and sent with its length in front of it, so that
+ * the master can read the messages without blocking a thread per slave.
+ */
+class Frames {
+
+    // the number of bytes of the length in front of every frame
+    public static final int HEADER_BYTES = Integer.BYTES;
+    // the largest frame that is accepted, the primes of a mission fit in easily
+    public static final int MAX_LENGTH = 1 << 28;
+
+    /**
+     * Serialize an object into a frame
+     *
+     * @param obj the object to send
+     * @return a {@link ByteBuffer} with the length and the serialized object, ready to be written
+     * @throws IOException if the object cannot be serialized
+     */
+    public static ByteBuffer encode(Object obj) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        // the placeholder of the length
+        bytes.write(new byte[HEADER_BYTES]);
+        try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(bytes)) {
+            objectOutputStream.writeObject(obj);
+        }
+        ByteBuffer frame = ByteBuffer.wrap(bytes.toByteArray());
+        frame.putInt(0, frame.limit() - HEADER_BYTES);
+        return frame;
+    }
+
+    /**
+     * Deserialize the object of a frame
+     *
+     * @param bytes the bytes that contain the frame
+     * @param offset the index of the first byte of the object, behind the length
+     * @param length the length of the object
+     * @return the object
+     * @throws IOException if the object cannot be deserialized
+     * @throws ClassNotFoundException if the class of the object is unknown
+     */
+    public static Object decode(byte[] bytes, int offset, int length) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream objectInputStream = new ObjectInputStream(new ByteArrayInputStream(bytes, offset, length))) {
+            return objectInputStream.readObject();
+        }
+    }
+
+    /**
+     * Read the next frame from a blocking stream
+     *
+     * @param in the {@link DataInputStream} to read from
+     * @return the object of the frame
+     * @throws IOException if the stream is closed or the frame is invalid
+     * @throws ClassNotFoundException if the class of the object is unknown
+     */
+    public static Object read(DataInputStream in) throws IOException, ClassNotFoundException {
+        int length = in.readInt();
+        checkLength(length);
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return decode(bytes, 0, length);
+    }
+
+    /**
+     * Check the length of a frame before reading it
+     *
+     * @param length the length that has been received
+     * @throws IOException if the length is negative or larger than {@link #MAX_LENGTH}
+     */
+    public static void checkLength(int length) throws IOException {
+        if (length < 0 || length > MAX_LENGTH) {
+            throw new IOException("invalid frame length " + length);
+        }
+    }
+}
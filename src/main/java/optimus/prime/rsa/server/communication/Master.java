@@ -1,20 +1,21 @@
 package optimus.prime.rsa.server.communication;
 
 import java.io.*;
-import java.math.BigInteger;
 import java.net.InetAddress;
-import java.net.ServerSocket;
-import java.net.Socket;
 import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
 
 import optimus.prime.rsa.ConsoleColors;
 import optimus.prime.rsa.Message;
 import optimus.prime.rsa.MessageType;
 import optimus.prime.rsa.MultiMessage;
+import optimus.prime.rsa.server.SliceLedger;
 import optimus.prime.rsa.server.Utils;
 import optimus.prime.rsa.payloads.*;
 import optimus.prime.rsa.server.config.MasterConfiguration;
@@ -27,15 +28,38 @@ import optimus.prime.rsa.server.crypto.RSAHelper;
  */
 public class Master implements Runnable {
 
-    private ServerSocket serverSocket;
-    private final List<Thread> connectionHandlerThreads = new ArrayList<>();
+    // how long the event loop waits for the slaves and how often idle slaves back up slow slices
+    private static final long SELECT_MILLIS = 100;
+    private static final long SPECULATE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private SlaveSelector slaveSelector;
     private final Broadcaster broadcaster;
     private final Thread broadcasterThread;
 
-    private final List<SlicePayload> slicesInProgress = new LinkedList<>();
+    // the measured checks per second of every slave that reported its throughput
+    private final Map<ConnectionHandler, Double> throughputs = new HashMap<>();
+
+    // the slaves that joined, the slices of their tails can be split off
+    private final List<ConnectionHandler> connectionHandlers = new ArrayList<>();
+    // the slaves that wait for the tail of a slice of another slave
+    private final Queue<ConnectionHandler> idleSlaves = new LinkedList<>();
+    // the slices that a split has been requested for by the slave holding them
+    private final Map<SlicePayload, ConnectionHandler> splitsRequested = new HashMap<>();
+    // the slow slices that are inspected by an idle slave as well, by the slave of the backup
+    private final Map<SlicePayload, ConnectionHandler> backups = new HashMap<>();
+    // the outcome of the backups, the saved time is estimated from the progress of the cancelled slave
+    private int backupsWon = 0;
+    private int originalsWon = 0;
+    private long wastedNanos = 0;
+    private long savedNanos = 0;
 
     private boolean alreadyStarted = false;
 
+    // the time MASTER_CANCEL has been sent, 0 if it has not been sent
+    private long cancelNanos = 0;
+    // the time from sending MASTER_CANCEL until the last slave acknowledged it
+    private long quiesceNanos = 0;
+
     /**
      * Create a new {@link Master}
      */
@@ -48,15 +72,15 @@ public class Master implements Runnable {
         NetworkConfiguration.hosts = new ArrayList<>();
 
         try {
-            this.serverSocket = new ServerSocket(
+            // the connections of all slaves are handled by the thread of the master
+            this.slaveSelector = new SlaveSelector(
+                    NetworkConfiguration.masterAddress,
                     StaticConfiguration.PORT,
                     MasterConfiguration.MAX_INCOMING_SLAVES,
-                    NetworkConfiguration.masterAddress
+                    MasterConfiguration.MASTER_LEASE_MILLIS,
+                    this::accept
             );
-            // set timeout to prevent getting stuck in the 'accept' method
-            // of the server socket
-            this.serverSocket.setSoTimeout(1000);
-            log("Socket opened " + this.serverSocket);
+            log("Socket opened " + this.slaveSelector.getLocalAddress());
         } catch (IOException e) {
             err("failed while creating the serverSocket - " + e);
             System.exit(1);
@@ -84,12 +108,26 @@ public class Master implements Runnable {
         // stop the master
         this.stop();
 
-        // show solution if one was found
-        if (MasterConfiguration.solution != null) {
-            RSAHelper helper = new RSAHelper();
-            log("Decrypted text is " + ConsoleColors.UNDERLINE + helper.decrypt(MasterConfiguration.solution.getPrime1().toString(), MasterConfiguration.solution.getPrime2().toString(), StaticConfiguration.CIPHER));
-        } else {
-            log("The solution cannot be found in the given prime numbers.");
+        // show the solution of every key if one was found
+        RSAHelper helper = new RSAHelper();
+        for (KeyPayload key : StaticConfiguration.keys) {
+            SolutionPayload solution = MasterConfiguration.solutions.get(key.getPubKeyRsa());
+            if (solution != null) {
+                log("Decrypted text of the public key " + key.getPubKeyRsa() + " is " + ConsoleColors.UNDERLINE + helper.decrypt(solution.getPrime1().toString(), solution.getPrime2().toString(), key.getCipher()));
+            } else {
+                log("The solution of the public key " + key.getPubKeyRsa() + " cannot be found in the given prime numbers.");
+            }
+        }
+
+        // the CPU time that has been spent after the mission was solved
+        if (this.cancelNanos != 0) {
+            log(String.format("All slaves stopped working %.3fms after the cancel", this.quiesceNanos / 1e6));
+        }
+
+        // the time that the backups of slow slices cost and saved
+        if (this.backupsWon + this.originalsWon > 0) {
+            log(String.format("Backups of slow slices: %d won by the backup, %d by the original slave - %.3fms wasted, about %.3fms saved",
+                    this.backupsWon, this.originalsWon, this.wastedNanos / 1e6, this.savedNanos / 1e6));
         }
 
         // send the solution to the client
@@ -106,32 +144,33 @@ public class Master implements Runnable {
     }
 
     /**
-     * This method accepts connections by slaves and starts a connection handler
+     * This method runs the event loop that accepts connections by slaves and
+     * hands their messages to their connection handlers
      *
      * @throws IOException if an I/O error occurs when waiting for a connection.
      */
     private void distributeConnections() throws IOException {
+        long speculateNanos = System.nanoTime();
         // accept connections as long as
         // - the mission is not already started or
-        // - no solution has been found yet and there are still slices to process
-        while (!alreadyStarted || (!this.serverSocket.isClosed() && MasterConfiguration.solution == null && (MasterConfiguration.currentSliceStart != StaticConfiguration.primes.size() || !this.slicesInProgress.isEmpty() || !MasterConfiguration.lostSlices.isEmpty()))) {
-            try {
-                Socket slave = this.serverSocket.accept();
-                log("Connection from " + slave + " established.");
-                // start the new connection handler
-                ConnectionHandler handler = new ConnectionHandler(
-                        slave,
-                        this.broadcaster
-                );
-                Thread thread = new Thread(handler);
-                thread.start();
-                this.connectionHandlerThreads.add(thread);
-            } catch (SocketTimeoutException ignored) {
-            }
-            // As soon as the cipher, public key and the number of primes are set
+        // - not every key has been solved yet and there are still slices to process
+        while (!alreadyStarted || (this.slaveSelector.isOpen() && !isMissionSolved() && !MasterConfiguration.ledger.isDone())) {
+            this.slaveSelector.select(SELECT_MILLIS);
+            // idle slaves back up the slices that take too long
+            if (this.alreadyStarted && System.nanoTime() - speculateNanos >= SPECULATE_NANOS) {
+                this.speculate();
+                speculateNanos = System.nanoTime();
+            }
+            // As soon as the keys and the primes are set
             // there is a mission that can be started --> start
-            if (!this.alreadyStarted && !StaticConfiguration.PUB_RSA_KEY.equals(BigInteger.ZERO) && !StaticConfiguration.CIPHER.equals("") && StaticConfiguration.primes != null) {
+            if (!this.alreadyStarted && StaticConfiguration.keys != null && StaticConfiguration.primes != null) {
                 this.alreadyStarted = true;
+                // a master that took over continues with the progress of the previous master
+                if (MasterConfiguration.ledger == null) {
+                    MasterConfiguration.ledger = MasterConfiguration.progress != null
+                            ? new SliceLedger(MasterConfiguration.progress)
+                            : new SliceLedger(getSearchSpaceSize());
+                }
                 log("Broadcasting mission details.");
                 // tell every slave about the mission
                 broadcastMissionDetails();
@@ -140,65 +179,129 @@ public class Master implements Runnable {
     }
 
     /**
-     * Mark the mission as solved, because a {@link SolutionPayload} was found
+     * Create a connection handler for a slave that connected
+     *
+     * @param channel the {@link SlaveChannel} of the slave
+     * @return the {@link ConnectionHandler} that handles the messages of the slave
+     */
+    private SlaveChannel.Listener accept(SlaveChannel channel) {
+        log("Connection from " + channel + " established.");
+        return new ConnectionHandler(channel, this.broadcaster);
+    }
+
+    /**
+     * Mark a key of the mission as solved, because a {@link SolutionPayload} was found
      *
      * @param s {@link SolutionPayload} of the solution that has been found
+     * @return true, if the key has not been solved before
+     */
+    private boolean markAsSolved(SolutionPayload s) {
+        if (MasterConfiguration.solutions.putIfAbsent(s.getPubKeyRsa(), s) != null) {
+            log("Solution already known: " + s);
+            return false;
+        }
+        log("Solution found: " + s + " - " + MasterConfiguration.solutions.size() + " of " + StaticConfiguration.keys.size() + " keys solved");
+        return true;
+    }
+
+    /**
+     * Check if every key of the mission is solved
+     *
+     * @return true, if there is a solution for every key
+     */
+    private static boolean isMissionSolved() {
+        if (StaticConfiguration.keys == null) {
+            return false;
+        }
+        for (KeyPayload key : StaticConfiguration.keys) {
+            if (!MasterConfiguration.solutions.containsKey(key.getPubKeyRsa())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the number of indices that the slices of the mission cover
+     *
+     * @return the number of public keys for the batch GCD, else the number of primes
+     */
+    private static int getSearchSpaceSize() {
+        if (!StaticConfiguration.SEARCH_MODE.usesPrimes()) {
+            return StaticConfiguration.keys.size();
+        }
+        return StaticConfiguration.primes.size();
+    }
+
+    /**
+     * Get the number of checks of a new slice for a slave. If the throughput of the
+     * slave is known, the slice is sized to take {@link MasterConfiguration#MASTER_MILLIS_PER_SLICE}
+     * on the slave. Near the end of the search space a slave gets at most half of its
+     * share of the remaining checks, so that the slices shrink and all slaves finish together.
+     *
+     * @param workers number of workers that the slave works with
+     * @param checksPerSecond the measured checks per second of the slave, 0 if unknown
+     * @param remainingChecks the number of checks that have not been handed out yet
+     * @return the number of checks of the slice
      */
-    private synchronized void markAsSolved(SolutionPayload s) {
-        MasterConfiguration.solution = s;
-        log("Solution found: " + s);
+    private long getChecksPerSlice(int workers, double checksPerSecond, long remainingChecks) {
+        if (checksPerSecond <= 0 || MasterConfiguration.MASTER_MILLIS_PER_SLICE <= 0) {
+            // no measurement yet, fall back to the static size
+            return workers * MasterConfiguration.MASTER_CHECKS_PER_SLICE_PER_WORKER;
+        }
+        long checksPerSlice = (long) (checksPerSecond * MasterConfiguration.MASTER_MILLIS_PER_SLICE / 1000);
+
+        double totalChecksPerSecond = 0;
+        for (double throughput : this.throughputs.values()) {
+            totalChecksPerSecond += throughput;
+        }
+        totalChecksPerSecond = Math.max(totalChecksPerSecond, checksPerSecond);
+        long tailChecks = (long) (remainingChecks * (checksPerSecond / totalChecksPerSecond) / 2);
+
+        return Math.max(Math.min(checksPerSlice, tailChecks), 1);
     }
 
     /**
-     * Get the next major slice for a slave
+     * Get the next major slice for a slave from the pending rows of the {@link SliceLedger}
      *
      * @param workers number of workers that the slave works with
+     * @param checksPerSecond the measured checks per second of the slave, 0 if unknown
      * @return the major slice
      * @throws NoSuchElementException there are no more major slices
      */
-    private synchronized SlicePayload getNextSlice(int workers) throws NoSuchElementException {
-        SlicePayload slice;
-
-        if (!MasterConfiguration.lostSlices.isEmpty()) {
-            // use a slice that was lost in a previous attempt to finish this slice
-            // if one is available
-            slice = MasterConfiguration.lostSlices.remove();
-        } else if (MasterConfiguration.currentSliceStart != StaticConfiguration.primes.size()) {
-            // make a new slice depending on the number of workers.
-            int numberOfPrimes = StaticConfiguration.primes.size();
-            int currentStart = MasterConfiguration.currentSliceStart;
-            long checksPerSlice = workers * MasterConfiguration.MASTER_CHECKS_PER_SLICE_PER_WORKER;
-
+    private SlicePayload getNextSlice(int workers, double checksPerSecond) throws NoSuchElementException {
+        // make a new slice depending on the number of workers.
+        int numberOfPrimes = getSearchSpaceSize();
+        long remainingChecks = MasterConfiguration.ledger.getPendingChecks(StaticConfiguration.SEARCH_MODE.isLinear());
+        long checksPerSlice = this.getChecksPerSlice(workers, checksPerSecond, remainingChecks);
+
+        // the slice starts with the rows that were lost in a previous attempt
+        // or with the rows that have never been started
+        SlicePayload slice = MasterConfiguration.ledger.take((currentStart, lastRow) -> {
+            if (StaticConfiguration.SEARCH_MODE.isLinear()) {
+                // every prime is one check
+                return (int) Math.min(currentStart + checksPerSlice - 1, Integer.MAX_VALUE);
+            }
             // Don't worry if you don't understand the following line of code.
             // You need to reed the documentation to understand the derivation
             // of this mathematical formula.
-            int sliceEnd = numberOfPrimes - (int) Math.round(Math.sqrt(Math.pow(numberOfPrimes - currentStart, 2) - 2 * checksPerSlice));
-            // current end is at least at current start
-            sliceEnd = Math.max(sliceEnd, currentStart);
-            // current end must be smaller or equal to end
-            sliceEnd = Math.min(sliceEnd, numberOfPrimes - 1);
-
-            slice = new SlicePayload(currentStart, sliceEnd);
-            MasterConfiguration.currentSliceStart = slice.getEnd() + 1;
-        } else {
+            return numberOfPrimes - (int) Math.round(Math.sqrt(Math.pow(numberOfPrimes - currentStart, 2) - 2 * checksPerSlice));
+        });
+        if (slice == null) {
             throw new NoSuchElementException();
         }
-
-        // add to the slices that are currently in progress
-        this.slicesInProgress.add(slice);
-        // return the slice
         return slice;
     }
 
     /**
-     * Mark a slice as done
+     * Mark a slice as done and send the progress to all slaves
      *
      * @param slice {@link SlicePayload} that is finished
      */
-    private synchronized void markSliceAsDone(SlicePayload slice) {
+    private void markSliceAsDone(SlicePayload slice) {
         log("Slice " + slice + " is done");
-        // the slice is no longer in progress
-        this.slicesInProgress.remove(slice);
+        MasterConfiguration.ledger.markDone(slice);
+        this.broadcastProgress();
     }
 
     /**
@@ -206,31 +309,159 @@ public class Master implements Runnable {
      *
      * @param slice {@link SlicePayload} that has been lost during processing
      */
-    private synchronized void lostSlice(SlicePayload slice) {
-        log("Slice " + slice + " added to lost slices");
-        // the slice is no longer in progress
-        this.slicesInProgress.remove(slice);
+    private void lostSlice(SlicePayload slice) {
         if (slice != null) {
-            // add the slice to the list slices
-            MasterConfiguration.lostSlices.add(slice);
-            // send progress to all slaves
-            ProgressPayload progressPayload = new ProgressPayload(getLostSlices(), MasterConfiguration.currentSliceStart);
-            Message progressMessage = new Message(MessageType.MASTER_PROGRESS, progressPayload);
-            this.broadcaster.send(progressMessage);
+            // only the rows that have not been checkpointed have to be done again
+            for (SlicePayload rows : MasterConfiguration.ledger.getDone(slice)) {
+                log("Slice " + rows + " is done, checkpoint of " + slice);
+            }
+            for (SlicePayload rest : MasterConfiguration.ledger.reclaim(slice)) {
+                log("Slice " + rest + " added to lost slices");
+            }
         }
     }
 
     /**
-     * Get all slices that are being lost at the point where the master fails
+     * Send the done rows to all slaves, in case the master dies
+     */
+    private void broadcastProgress() {
+        ProgressPayload progressPayload = MasterConfiguration.ledger.getProgress();
+        Message progressMessage = new Message(MessageType.MASTER_PROGRESS, progressPayload);
+        this.broadcaster.send(progressMessage);
+    }
+
+    /**
+     * Ask the slave that needs the longest for one of its slices to give up the tail
+     * of the slice that has not been started yet. The tail is handed to the idle slave
+     * as soon as the slave acknowledges the split.
+     *
+     * @param idle the slave that has run out of work
+     * @return true, if a split has been requested, false if there is no slice to split
+     */
+    private boolean requestSplit(ConnectionHandler idle) {
+        int searchSpaceSize = getSearchSpaceSize();
+        boolean linear = StaticConfiguration.SEARCH_MODE.isLinear();
+
+        ConnectionHandler victim = null;
+        SlicePayload victimSlice = null;
+        double longestSeconds = 0;
+        for (ConnectionHandler handler : this.connectionHandlers) {
+            if (handler == idle) {
+                continue;
+            }
+            for (SlicePayload slice : handler.currentSlices) {
+                // a slice with a single row cannot be split
+                if (this.splitsRequested.containsKey(slice) || this.backups.containsKey(slice) || handler.unsplittableSlices.contains(slice) || slice.getEnd() <= slice.getStart()) {
+                    continue;
+                }
+                // if the throughput is unknown, the checks are compared
+                double seconds = Utils.getChecks(slice, searchSpaceSize, linear) / Math.max(handler.checksPerSecond, 1);
+                if (seconds > longestSeconds) {
+                    longestSeconds = seconds;
+                    victim = handler;
+                    victimSlice = slice;
+                }
+            }
+        }
+        if (victim == null) {
+            return false;
+        }
+
+        log("Requesting split of slice " + victimSlice + " for an idle slave");
+        this.splitsRequested.put(victimSlice, victim);
+        this.idleSlaves.add(idle);
+        MultiMessage splitRequest = new MultiMessage();
+        splitRequest.addMessage(new Message(MessageType.MASTER_SPLIT_REQUEST, victimSlice));
+        victim.send(splitRequest);
+        return true;
+    }
+
+    /**
+     * Let a slave that has run out of work wait for the tail of another slice,
+     * or for a slice that takes too long, so that it can back up the slice.
      *
-     * @return {@link Queue} of lost slices
+     * @param idle the slave that has run out of work
+     * @return true, if the slave waits, false if there is no more work for the slave
+     */
+    private boolean waitForWork(ConnectionHandler idle) {
+        if (this.requestSplit(idle)) {
+            return true;
+        }
+        if (MasterConfiguration.MASTER_BACKUP_FACTOR > 0 && MasterConfiguration.ledger.hasInFlight()) {
+            this.idleSlaves.add(idle);
+            this.speculate();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Start a backup of every slice that takes {@link MasterConfiguration#MASTER_BACKUP_FACTOR}
+     * times longer than expected from the throughput of its slave on an idle slave.
+     * A slave works on its slices in the order they have been assigned, so a slice is expected
+     * to be done when the slave has done the checks of the slice and of the slices before it.
+     * The slice is done as soon as one of both slaves finishes it, the other slave is cancelled.
      */
-    private Queue<SlicePayload> getLostSlices() {
-        final Queue<SlicePayload> lostSlices = new LinkedList<>(MasterConfiguration.lostSlices);
-        // slices in progress are lost as well when the
-        // master dies.
-        lostSlices.addAll(this.slicesInProgress);
-        return lostSlices;
+    private void speculate() {
+        if (MasterConfiguration.MASTER_BACKUP_FACTOR <= 0) {
+            return;
+        }
+        int searchSpaceSize = getSearchSpaceSize();
+        boolean linear = StaticConfiguration.SEARCH_MODE.isLinear();
+        while (!this.idleSlaves.isEmpty()) {
+            // a slave that has not been measured yet is expected to be as fast as the others
+            double averageChecksPerSecond = this.throughputs.values().stream().mapToDouble(Double::doubleValue).average().orElse(0);
+            long now = System.nanoTime();
+            SlicePayload straggler = null;
+            double worstOverrun = MasterConfiguration.MASTER_BACKUP_FACTOR;
+            for (ConnectionHandler handler : this.connectionHandlers) {
+                double checksPerSecond = handler.checksPerSecond > 0 ? handler.checksPerSecond : averageChecksPerSecond;
+                if (checksPerSecond <= 0) {
+                    continue;
+                }
+                long checks = 0;
+                for (SlicePayload slice : handler.currentSlices) {
+                    checks += Utils.getChecks(slice, searchSpaceSize, linear);
+                    if (this.backups.containsKey(slice) || this.splitsRequested.containsKey(slice)) {
+                        continue;
+                    }
+                    long since = handler.getStartedNanos(slice);
+                    double overrun = (now - since) / (checks / checksPerSecond * 1e9);
+                    if (overrun > worstOverrun) {
+                        worstOverrun = overrun;
+                        straggler = slice;
+                    }
+                }
+            }
+            if (straggler == null) {
+                return;
+            }
+
+            ConnectionHandler idle = this.idleSlaves.remove();
+            log(String.format("Slice %s takes %.1f times longer than expected -> starting a backup", straggler, worstOverrun));
+            this.backups.put(straggler, idle);
+            idle.assign(straggler);
+        }
+    }
+
+    /**
+     * Hand a slice to a slave that waits for work, because there are
+     * slices available again. If there are none, the slave waits for
+     * another slave or exits.
+     */
+    private void releaseIdleSlave() {
+        ConnectionHandler idle = this.idleSlaves.poll();
+        if (idle == null) {
+            return;
+        }
+        try {
+            SlicePayload slice = getNextSlice(idle.workers, idle.checksPerSecond);
+            idle.assign(slice);
+        } catch (NoSuchElementException ignored) {
+            if (!this.waitForWork(idle)) {
+                idle.exit();
+            }
+        }
     }
 
     /**
@@ -247,17 +478,24 @@ public class Master implements Runnable {
         out.addMessage(primesMessage);
         log("mission details: primes");
 
-        // create payload for the public key
-        PubKeyRsaPayload pubKeyRsaPayload = new PubKeyRsaPayload(StaticConfiguration.PUB_RSA_KEY);
-        Message pubKeyRsaMessage = new Message(MessageType.MASTER_SEND_PUB_KEY_RSA, pubKeyRsaPayload);
-        out.addMessage(pubKeyRsaMessage);
-        log("mission details: public key: \"" + StaticConfiguration.PUB_RSA_KEY + "\"");
+        // create payload for the public keys and their ciphers
+        KeysPayload keysPayload = new KeysPayload(StaticConfiguration.keys);
+        Message keysMessage = new Message(MessageType.MASTER_SEND_KEYS, keysPayload);
+        out.addMessage(keysMessage);
+        log("mission details: keys: " + StaticConfiguration.keys.size());
+
+        // the keys that have already been solved don't have to be tested anymore
+        for (SolutionPayload solution : MasterConfiguration.solutions.values()) {
+            Message solvedMessage = new Message(MessageType.MASTER_KEY_SOLVED, solution);
+            out.addMessage(solvedMessage);
+            log("mission details: solved key: \"" + solution.getPubKeyRsa() + "\"");
+        }
 
-        // create payload for the cipher
-        CipherPayload cipherPayload = new CipherPayload(StaticConfiguration.CIPHER);
-        Message cipherMessage = new Message(MessageType.MASTER_CIPHER, cipherPayload);
-        out.addMessage(cipherMessage);
-        log("mission details: cipher: \"" + StaticConfiguration.CIPHER + "\"");
+        // create payload for the search mode
+        SearchModePayload searchModePayload = new SearchModePayload(StaticConfiguration.SEARCH_MODE);
+        Message searchModeMessage = new Message(MessageType.MASTER_SEND_SEARCH_MODE, searchModePayload);
+        out.addMessage(searchModeMessage);
+        log("mission details: search mode: " + StaticConfiguration.SEARCH_MODE);
 
         // create payload for the start time
         StartMillisPayload startMillisPayload = new StartMillisPayload(MasterConfiguration.startMillis);
@@ -290,22 +528,23 @@ public class Master implements Runnable {
     /**
      * Stop the master gracefully
      */
-    private synchronized void stop() {
+    private void stop() {
         log("waiting for ConnectionHandlers to terminate ...");
-        // wait for all connection handlers to terminate.
-        // the connection handlers terminate on their own without
-        // sending a signal to them, because ...
+        // no new slaves are accepted, but the connected slaves are handled
+        // until all of them disconnected. the connection handlers terminate
+        // on their own without sending a signal to them, because ...
         // - the slave wants to get a new slice
         // - the master has no more slices --> sends MASTER_EXIT
         // - the slave exits
         // - the connection handler terminates
-        this.connectionHandlerThreads.forEach(t -> {
-            try {
-                t.join();
-            } catch (InterruptedException e) {
-                err("error while waiting for the ConnectionHandlers to terminate - " + e);
+        this.slaveSelector.stopAccepting();
+        try {
+            while (this.slaveSelector.getConnections() > 0) {
+                this.slaveSelector.select(SELECT_MILLIS);
             }
-        });
+        } catch (IOException e) {
+            err("error while waiting for the ConnectionHandlers to terminate - " + e);
+        }
 
         // send the stop signal to the broadcaster
         log("sending stop signal to broadcaster ...");
@@ -319,7 +558,7 @@ public class Master implements Runnable {
         }
 
         try {
-            this.serverSocket.close();
+            this.slaveSelector.close();
         } catch (IOException e) {
             err("Failed to close the serverSocket - " + e);
         }
@@ -344,89 +583,121 @@ public class Master implements Runnable {
     }
 
     /**
-     * Class to handle specific connections to slaves
+     * Class to handle specific connections to slaves. The messages of the slave
+     * are handed to it by the {@link SlaveSelector} on the thread of the master,
+     * so the connection handlers share the state of the master without locks.
      */
-    private class ConnectionHandler implements Runnable {
+    private class ConnectionHandler implements SlaveChannel.Listener {
 
-        private final Socket slave;
+        private final SlaveChannel slave;
         private boolean running = true;
         private final Broadcaster broadcaster;
 
-        private SlicePayload currentSlice;
+        // the slices that the slave is working on or holds as prefetched slices
+        private final List<SlicePayload> currentSlices = new LinkedList<>();
+        // the slices of the slave that have too few rows left to be split
+        private final Set<SlicePayload> unsplittableSlices = new HashSet<>();
+        // when the slices have been assigned and when the slave finished its last slice
+        private final Map<SlicePayload, Long> assignedNanos = new HashMap<>();
+        private long finishedNanos = 0;
+        // the slices that have been cancelled because their backup finished first,
+        // by the time spent on them and by the time they have been cancelled
+        private final Map<SlicePayload, Long> overtakenNanos = new HashMap<>();
+        private final Map<SlicePayload, Long> cancelledNanos = new HashMap<>();
         private int workers;
+        private int prefetchedSlices;
+        // the checks per second that the slave reported, 0 if unknown
+        private double checksPerSecond = 0;
 
         /**
          * Create a new {@link ConnectionHandler}
          *
-         * @param slave the socket of the slave
+         * @param slave the channel of the slave
          * @param broadcaster a broadcaster
          */
-        public ConnectionHandler(Socket slave, Broadcaster broadcaster) {
+        public ConnectionHandler(SlaveChannel slave, Broadcaster broadcaster) {
             this.slave = slave;
             log("Initializing new ConnectionHandler.");
             this.broadcaster = broadcaster;
         }
 
         /**
-         * Method for the thread to execute.
-         * Contains the main loop to communicate with a slave
+         * Handle a message of the slave and send the response.
+         * Every message of the slave renews the lease of its slices.
+         *
+         * @param message the {@link Message} that has been received
          */
         @Override
-        public void run() {
-            log("Starting ConnectionHandler");
-            try (
-                    OutputStream outputStream = this.slave.getOutputStream();
-                    SyncedObjectOutputStream objectOutputStream = new SyncedObjectOutputStream(outputStream);
-                    InputStream inputStream = this.slave.getInputStream();
-                    ObjectInputStream objectInputStream = new ObjectInputStream(inputStream)
-            ) {
-                // main loop to receive messages
-                while (this.running) {
-                    // wait for a message to be received
-                    log("waiting for message to be received ...");
-                    Message message = (Message) objectInputStream.readObject();
-
-                    // handle the incoming
-                    final MultiMessage response = this.handleMessage(message);
-
-                    // The SLAVE_JOIN message is the first message, so we have to
-                    // add the slave to the broadcaster
-                    if (message.getType() == MessageType.SLAVE_JOIN) {
-                        // add to output streams for broadcasting
-                        broadcaster.addOutputStream(this.slave.getInetAddress(), objectOutputStream);
-                    }
+        public void onMessage(Message message) {
+            // handle the incoming
+            final MultiMessage response = this.handleMessage(message);
+
+            // The SLAVE_JOIN message is the first message, so we have to
+            // add the slave to the broadcaster
+            if (message.getType() == MessageType.SLAVE_JOIN) {
+                // add to the channels for broadcasting
+                broadcaster.addChannel(this.slave);
+            }
 
-                    // if there is a response, send it to the slave
-                    if (response != null) {
-                        objectOutputStream.writeSyncedObjectFlush(response);
+            // if there is a response, send it to the slave
+            if (response != null) {
+                this.send(response);
+            }
+        }
+
+        /**
+         * Clean up after the connection to the slave has been closed. If the
+         * slave did not exit on purpose, its slices are given to the other slaves.
+         *
+         * @param cause the reason the connection has been closed, null if it has been closed on purpose
+         */
+        @Override
+        public void onClose(IOException cause) {
+            if (cause instanceof SocketTimeoutException) {
+                // the slave is hung or cut off, treat it like a dead slave
+                err("lease expired - no message from the slave for " + MasterConfiguration.MASTER_LEASE_MILLIS + "ms");
+            } else if (this.running) {
+                err("Object Input stream closed " + cause);
+            } else {
+                log("Slave disconnected on purpose.");
+            }
+
+            // remove the host from networking
+            broadcaster.removeChannel(this.slave);
+            NetworkConfiguration.hosts.remove(this.slave.getAddress());
+            // tell everybody that there is one slave less
+            HostsPayload hostsPayload = new HostsPayload(NetworkConfiguration.hosts);
+            Message hostsMessage = new Message(MessageType.MASTER_HOSTS_LIST, hostsPayload);
+            broadcaster.send(hostsMessage);
+            ClientHandler.getInstance().notifyHostListChanged();
+            connectionHandlers.remove(this);
+            idleSlaves.remove(this);
+            if (this.running) {
+                // Slave died
+                for (SlicePayload slice : this.currentSlices) {
+                    // the other slave of a backup keeps working on the slice
+                    if (backups.remove(slice) == null) {
+                        lostSlice(slice);
                     }
                 }
-            } catch (IOException e) {
-                if (this.running) {
-                    err("Object Input stream closed " + e);
-                } else {
-                    log("Slave disconnected on purpose.");
-                }
-            } catch (ClassNotFoundException e) {
-                err("Class of incoming object unknown - " + e);
-            } finally {
-                // remove the host from networking
-                broadcaster.removeOutputStream(this.slave.getInetAddress());
-                NetworkConfiguration.hosts.remove(this.slave.getInetAddress());
-                // tell everybody that there is one slave less
-                HostsPayload hostsPayload = new HostsPayload(NetworkConfiguration.hosts);
-                Message hostsMessage = new Message(MessageType.MASTER_HOSTS_LIST, hostsPayload);
-                broadcaster.send(hostsMessage);
-                ClientHandler.getInstance().notifyHostListChanged();
-                if (this.running) {
-                    // Slave died
-                    // this method cannot be called in the catch block, because
-                    // the method triggers a broadcast to all slaves. However,
-                    // in the catch block the stream of this slave is still
-                    // in the broadcaster (but not active anymore).
-                    lostSlice(this.currentSlice);
+            }
+            // the slaves waiting for a split of this slave won't get an answer anymore
+            int unansweredSplits = 0;
+            for (Iterator<ConnectionHandler> it = splitsRequested.values().iterator(); it.hasNext(); ) {
+                if (it.next() == this) {
+                    it.remove();
+                    unansweredSplits++;
                 }
             }
+            for (int i = 0; i < unansweredSplits; i++) {
+                releaseIdleSlave();
+            }
+            // the lost slices are handed to the slaves that wait for a split
+            while (!idleSlaves.isEmpty() && MasterConfiguration.ledger.hasPending()) {
+                releaseIdleSlave();
+            }
+            // the slave does not count for the size of the slices anymore
+            throughputs.remove(this);
 
             log("Terminated");
         }
@@ -445,16 +716,32 @@ public class Master implements Runnable {
                     response = this.handleJoin(m);
                     break;
                 case SLAVE_FINISHED_WORK:
-                    response = this.handleWorkNeeded(false);
+                    response = this.handleWorkNeeded(m);
                     break;
                 case SLAVE_SOLUTION_FOUND:
                     response = this.handleSolutionFound(m);
                     break;
+                case SLAVE_CANCEL_ACKNOWLEDGE:
+                    response = this.handleCancelAcknowledge(m);
+                    break;
+                case SLAVE_SPLIT_ACKNOWLEDGE:
+                    response = this.handleSplitAcknowledge(m);
+                    break;
+                case SLAVE_CANCEL_SLICE_ACKNOWLEDGE:
+                    response = this.handleCancelSliceAcknowledge(m);
+                    break;
+                case SLAVE_CHECKPOINT:
+                    response = this.handleCheckpoint(m);
+                    break;
+                case SLAVE_HEARTBEAT:
+                    // the lease has been renewed by receiving the message
+                    response = null;
+                    break;
                 case SLAVE_EXIT_ACKNOWLEDGE:
                     response = this.handleExitAcknowledge();
                     break;
                 case SLAVE_GET_FIRST_SLICE:
-                    response = this.handleWorkNeeded(true);
+                    response = this.handleWorkNeeded(null);
                     break;
                 default:
                     response = MultiMessage.NONE;
@@ -474,10 +761,12 @@ public class Master implements Runnable {
         private MultiMessage handleJoin(Message m) {
             JoinPayload joinPayload = (JoinPayload) m.getPayload();
             this.workers = joinPayload.getWorkers();
+            this.prefetchedSlices = joinPayload.getPrefetchedSlices();
+            connectionHandlers.add(this);
 
-            log("Slave wants to join with " + this.workers + " workers");
+            log("Slave wants to join with " + this.workers + " workers and " + this.prefetchedSlices + " prefetched slices");
 
-            InetAddress slaveAddress = this.slave.getInetAddress();
+            InetAddress slaveAddress = this.slave.getAddress();
             // if slave is not on the same host provide information
             // that is needed in case the master goes down
             if (!NetworkConfiguration.ownAddresses.contains(slaveAddress)) {
@@ -501,43 +790,318 @@ public class Master implements Runnable {
         }
 
         /**
-         * Get new work for a slave
+         * Get new work for a slave. The slave holds its prefetched slices in
+         * addition to the slice it is working on, so that its workers can
+         * continue with the next slice without waiting for the master.
          *
-         * @param firstWork specifies if this is the first time the slave needs work
+         * @param m {@link Message} of type SLAVE_FINISHED_WORK with the finished slice and
+         *          the throughput of the slave, or null if this is the first time the slave needs work
          * @return {@link MultiMessage}
          */
-        private MultiMessage handleWorkNeeded(boolean firstWork) {
+        private MultiMessage handleWorkNeeded(Message m) {
             log("Slave needs new work");
             // except TaskPayload
             MultiMessage response = new MultiMessage();
 
-            if (!firstWork) {
-                markSliceAsDone(this.currentSlice);
+            if (m != null) {
+                FinishedWorkPayload finishedWorkPayload = (FinishedWorkPayload) m.getPayload();
+                SlicePayload finishedSlice = finishedWorkPayload.getSlice();
+                this.finishedNanos = System.nanoTime();
+                boolean finished = this.removeSlice(finishedSlice);
+                if (finished) {
+                    this.finishBackup(finishedSlice);
+                } else {
+                    // the slice has been cancelled, because the other slave of the backup was faster
+                    Long cancelled = this.cancelledNanos.remove(finishedSlice);
+                    if (cancelled != null) {
+                        // the slave finished the whole slice after all, so the saved time is known
+                        this.overtakenNanos.remove(finishedSlice);
+                        savedNanos += this.finishedNanos - cancelled;
+                    }
+                }
+                if (finished) {
+                    markSliceAsDone(finishedSlice);
+                    if (!MasterConfiguration.ledger.hasInFlight()) {
+                        // the slaves that wait for work of another slave get new slices or exit
+                        for (int i = idleSlaves.size(); i > 0; i--) {
+                            releaseIdleSlave();
+                        }
+                    }
+                } else {
+                    log("Slice " + finishedSlice + " has already been finished by another slave");
+                }
+                // the size of the next slices depends on the throughput
+                if (finishedWorkPayload.getChecksPerSecond() > 0) {
+                    this.checksPerSecond = finishedWorkPayload.getChecksPerSecond();
+                    throughputs.put(this, this.checksPerSecond);
+                    log(String.format("Slave checks %.0f per second", this.checksPerSecond));
+                }
             }
 
-            // create new slice for slave
-            try {
-                this.currentSlice = getNextSlice(this.workers);
-                log("Sending new slice to slave: " + this.currentSlice);
-                Message sliceMessage = new Message(MessageType.MASTER_DO_WORK, this.currentSlice);
-                response.addMessage(sliceMessage);
+            // the slave is already waiting for the tail of another slice
+            if (idleSlaves.contains(this)) {
+                return response;
+            }
+            int missingSlices = 1 + this.prefetchedSlices - this.currentSlices.size();
+
+            // create new slices for slave until it holds enough of them
+            List<SlicePayload> slices = new ArrayList<>();
+            for (int i = 0; i < missingSlices; i++) {
+                try {
+                    slices.add(getNextSlice(this.workers, this.checksPerSecond));
+                } catch (NoSuchElementException ignored) {
+                    break;
+                }
+            }
 
-                // send progress to all slaves
-                ProgressPayload progressPayload = new ProgressPayload(getLostSlices(), MasterConfiguration.currentSliceStart);
-                Message progressMessage = new Message(MessageType.MASTER_PROGRESS, progressPayload);
-                this.broadcaster.send(progressMessage);
+            for (SlicePayload slice : slices) {
+                this.addSlice(slice);
+            }
+            if (this.currentSlices.isEmpty()) {
+                if (waitForWork(this)) {
+                    // the slave gets the tail of a slice as soon as the other slave split it,
+                    // or the backup of a slice that takes too long
+                    log("No more slices to do -> waiting for work of another slave");
+                } else {
+                    // send MASTER_EXIT if there are no more slices
+                    log("No more slices to do -> sending MASTER_EXIT");
+                    Message exitMessage = new Message(MessageType.MASTER_EXIT);
+                    response.addMessage(exitMessage);
+                }
+            }
 
-            } catch (NoSuchElementException ignored) {
-                // send MASTER_EXIT if there are no more slices
-                log("No more slices to do -> sending MASTER_EXIT");
-                Message exitMessage = new Message(MessageType.MASTER_EXIT);
-                response.addMessage(exitMessage);
+            for (SlicePayload slice : slices) {
+                log("Sending new slice to slave: " + slice);
+                Message sliceMessage = new Message(MessageType.MASTER_DO_WORK, slice);
+                response.addMessage(sliceMessage);
             }
 
             // return multi message
             return response;
         }
 
+        /**
+         * Hand the tail of a slice to the slave that waits for it. The slave
+         * keeps working on the rows of the slice that are not part of the tail.
+         *
+         * @param m {@link Message} of type SLAVE_SPLIT_ACKNOWLEDGE
+         * @return {@link MultiMessage} with new work, if the slave gave up a whole slice, else null
+         */
+        private MultiMessage handleSplitAcknowledge(Message m) {
+            SplitPayload splitPayload = (SplitPayload) m.getPayload();
+            SlicePayload slice = splitPayload.getSlice();
+            SlicePayload kept = splitPayload.getKept();
+            SlicePayload tail = splitPayload.getTail();
+
+            splitsRequested.remove(slice);
+
+            if (tail == null) {
+                // the slave is about to finish the slice or has too few rows left
+                log("Slice " + slice + " cannot be split");
+                this.unsplittableSlices.add(slice);
+                releaseIdleSlave();
+                return null;
+            }
+
+            log("Slice " + slice + " has been split into " + kept + " and " + tail);
+            Long assigned = this.assignedNanos.get(slice);
+            if (this.removeSlice(slice) && kept != null) {
+                // the kept part is still measured from the time the whole slice has been assigned
+                this.currentSlices.add(kept);
+                this.assignedNanos.put(kept, assigned != null ? assigned : System.nanoTime());
+            }
+
+            ConnectionHandler idle = idleSlaves.poll();
+            if (idle != null) {
+                idle.assign(tail);
+            } else {
+                // the idle slave is gone, another slave picks the tail up
+                MasterConfiguration.ledger.reclaim(tail);
+            }
+
+            if (kept == null) {
+                // the slave gave up a whole slice and won't ask for a replacement on its own
+                return this.handleWorkNeeded(null);
+            }
+            return null;
+        }
+
+        /**
+         * Record the rows of a slice that the slave has inspected, so that only
+         * the rest of the slice has to be done again if the slave dies. The
+         * checkpoint renews the lease of the slices like a heartbeat.
+         *
+         * @param m {@link Message} of type SLAVE_CHECKPOINT
+         * @return null, there is no response
+         */
+        @SuppressWarnings("SameReturnValue")
+        private MultiMessage handleCheckpoint(Message m) {
+            CheckpointPayload checkpointPayload = (CheckpointPayload) m.getPayload();
+            SlicePayload slice = checkpointPayload.getSlice();
+
+            // the slice could have been finished by the other slave of a backup
+            if (!this.currentSlices.contains(slice)) {
+                return null;
+            }
+            for (SlicePayload rows : checkpointPayload.getCompleted()) {
+                MasterConfiguration.ledger.markDone(rows);
+            }
+            log("Slice " + slice + " has " + checkpointPayload.getCompleted() + " inspected");
+            broadcastProgress();
+            return null;
+        }
+
+        /**
+         * Send a slice to the slave outside of its request-response cycle
+         *
+         * @param slice the {@link SlicePayload} to work on
+         */
+        private void assign(SlicePayload slice) {
+            this.addSlice(slice);
+            log("Sending new slice to slave: " + slice);
+            MultiMessage sliceMessage = new MultiMessage();
+            sliceMessage.addMessage(new Message(MessageType.MASTER_DO_WORK, slice));
+            this.send(sliceMessage);
+        }
+
+        /**
+         * Cancel the other slave of a backup, because this slave finished the slice first
+         *
+         * @param slice the {@link SlicePayload} that has been finished
+         */
+        private void finishBackup(SlicePayload slice) {
+            ConnectionHandler backup = backups.remove(slice);
+            if (backup == null) {
+                return;
+            }
+            if (backup == this) {
+                backupsWon++;
+                for (ConnectionHandler handler : connectionHandlers) {
+                    if (handler != this && handler.currentSlices.contains(slice)) {
+                        handler.cancelSlice(slice, true);
+                        break;
+                    }
+                }
+            } else {
+                originalsWon++;
+                backup.cancelSlice(slice, false);
+            }
+        }
+
+        /**
+         * Tell the slave to stop working on a slice, because another slave finished it first
+         *
+         * @param slice the {@link SlicePayload} to cancel
+         * @param overtaken true, if the slave has been overtaken by the backup of its slice
+         */
+        private void cancelSlice(SlicePayload slice, boolean overtaken) {
+            long now = System.nanoTime();
+            long spentNanos = now - this.getStartedNanos(slice);
+            this.removeSlice(slice);
+            wastedNanos += spentNanos;
+            if (overtaken) {
+                this.overtakenNanos.put(slice, spentNanos);
+                this.cancelledNanos.put(slice, now);
+            }
+            log("Slice " + slice + " has been finished by another slave -> sending MASTER_CANCEL_SLICE");
+            MultiMessage cancelMessage = new MultiMessage();
+            cancelMessage.addMessage(new Message(MessageType.MASTER_CANCEL_SLICE, slice));
+            this.send(cancelMessage);
+        }
+
+        /**
+         * Estimate the time that the backup saved from how far the slave got with the slice
+         *
+         * @param m {@link Message} of type SLAVE_CANCEL_SLICE_ACKNOWLEDGE
+         * @return {@link MultiMessage} with new work, if the slave has not started the slice, else null
+         */
+        private MultiMessage handleCancelSliceAcknowledge(Message m) {
+            SplitPayload splitPayload = (SplitPayload) m.getPayload();
+            SlicePayload slice = splitPayload.getSlice();
+            SlicePayload kept = splitPayload.getKept();
+            SlicePayload tail = splitPayload.getTail();
+            log("Slave acknowledged cancel of slice " + slice + " - finishing " + kept + ", dropping " + tail);
+
+            Long spentNanos = this.overtakenNanos.get(slice);
+            if (spentNanos != null && tail != null) {
+                // the slave dropped rows, it won't report when it would have been done
+                this.overtakenNanos.remove(slice);
+                this.cancelledNanos.remove(slice);
+                int searchSpaceSize = getSearchSpaceSize();
+                boolean linear = StaticConfiguration.SEARCH_MODE.isLinear();
+                double remaining = (double) Utils.getChecks(tail, searchSpaceSize, linear) / Utils.getChecks(slice, searchSpaceSize, linear);
+                // the slave would have needed this long for the dropped rows at its pace so far,
+                // if it has not started the slice at all, the saved time cannot be estimated
+                if (remaining < 1) {
+                    savedNanos += (long) (spentNanos * remaining / (1 - remaining));
+                }
+            }
+
+            if (kept == null && tail != null) {
+                // the slave has not started the slice, so it won't report it as finished
+                return this.handleWorkNeeded(null);
+            }
+            return null;
+        }
+
+        /**
+         * Add a slice to the slices of the slave
+         *
+         * @param slice the {@link SlicePayload} that is sent to the slave
+         */
+        private void addSlice(SlicePayload slice) {
+            this.currentSlices.add(slice);
+            this.assignedNanos.put(slice, System.nanoTime());
+        }
+
+        /**
+         * Get the time from which the slave has been working on a slice. The slices
+         * before have been done, when the slave reported the last one.
+         *
+         * @param slice the {@link SlicePayload} of the slave
+         * @return the time the slice has been assigned or the last slice has been finished, whichever is later
+         */
+        private long getStartedNanos(SlicePayload slice) {
+            // the slice could have been finished or split away in the meantime
+            Long assigned = this.assignedNanos.get(slice);
+            return assigned == null ? this.finishedNanos : Math.max(assigned, this.finishedNanos);
+        }
+
+        /**
+         * Remove a slice from the slices of the slave
+         *
+         * @param slice the {@link SlicePayload} that the slave no longer works on
+         * @return true, if the slave worked on the slice
+         */
+        private boolean removeSlice(SlicePayload slice) {
+            this.assignedNanos.remove(slice);
+            this.unsplittableSlices.remove(slice);
+            return this.currentSlices.remove(slice);
+        }
+
+        /**
+         * Tell the slave to exit outside of its request-response cycle
+         */
+        private void exit() {
+            log("No more slices to do -> sending MASTER_EXIT");
+            MultiMessage exitMessage = new MultiMessage();
+            exitMessage.addMessage(new Message(MessageType.MASTER_EXIT));
+            this.send(exitMessage);
+        }
+
+        /**
+         * Send messages to the slave, they are written as soon as the slave takes them
+         *
+         * @param messages the {@link MultiMessage} to send
+         */
+        private void send(MultiMessage messages) {
+            try {
+                this.slave.send(messages);
+            } catch (IOException e) {
+                err("failed to send a message to the slave - " + e);
+            }
+        }
+
         /**
          * report that a solution has been found
          *
@@ -548,17 +1112,53 @@ public class Master implements Runnable {
         private MultiMessage handleSolutionFound(Message m) {
             log("Found solution");
 
-            // Key found - other slaves can stop working
+            // Key found - other slaves can stop testing against it
             SolutionPayload solution = (SolutionPayload) m.getPayload();
-            markAsSolved(solution);
+            if (markAsSolved(solution)) {
+                Message solvedMessage = new Message(MessageType.MASTER_KEY_SOLVED, solution);
+                this.broadcaster.send(solvedMessage);
+            }
 
-            log("No more slices to do -> sending MASTER_EXIT to Broadcaster");
-            Message exitMessage = new Message(MessageType.MASTER_EXIT);
-            this.broadcaster.send(exitMessage);
+            // every key found - all slaves can stop working
+            if (isMissionSolved()) {
+                this.cancel();
+                log("All keys solved -> sending MASTER_EXIT to Broadcaster");
+                Message exitMessage = new Message(MessageType.MASTER_EXIT);
+                this.broadcaster.send(exitMessage);
+            }
 
             return null;
         }
 
+        /**
+         * Tell every slave to stop its workers immediately. Only the first call sends MASTER_CANCEL.
+         */
+        private void cancel() {
+            if (cancelNanos != 0) {
+                return;
+            }
+            cancelNanos = System.nanoTime();
+            log("All keys solved -> sending MASTER_CANCEL to Broadcaster");
+            Message cancelMessage = new Message(MessageType.MASTER_CANCEL);
+            this.broadcaster.send(cancelMessage);
+        }
+
+        /**
+         * Record the time the slave needed to stop its workers
+         *
+         * @param m {@link Message} of type SLAVE_CANCEL_ACKNOWLEDGE
+         * @return null
+         */
+        @SuppressWarnings("SameReturnValue")
+        private MultiMessage handleCancelAcknowledge(Message m) {
+            CancelAcknowledgePayload cancelAcknowledgePayload = (CancelAcknowledgePayload) m.getPayload();
+            long sinceCancel = System.nanoTime() - cancelNanos;
+            quiesceNanos = Math.max(quiesceNanos, sinceCancel);
+            log(String.format("Slave acknowledged cancel - workers stopped after %.3fms, %.3fms after the cancel has been sent",
+                    cancelAcknowledgePayload.getQuiesceNanos() / 1e6, sinceCancel / 1e6));
+            return null;
+        }
+
         /**
          * Do some required stuff after the slave exits
          *
@@ -567,12 +1167,9 @@ public class Master implements Runnable {
         @SuppressWarnings("SameReturnValue")
         private MultiMessage handleExitAcknowledge() {
             log("Slave acknowledged exit");
-            // stop main loop
+            // the slave exits on purpose
             this.running = false;
-            try {
-                this.slave.close();
-            } catch (IOException ignored) {
-            }
+            this.slave.close(null);
             return null;
         }
 
@@ -582,7 +1179,7 @@ public class Master implements Runnable {
          * @param s {@link String} to log
          */
         private void log(String s) {
-            System.out.println(ConsoleColors.GREEN_BRIGHT + "Master        - ConnectionHandler - " + this.slave.getInetAddress().getHostAddress() + " - " + s + ConsoleColors.RESET);
+            System.out.println(ConsoleColors.GREEN_BRIGHT + "Master        - ConnectionHandler - " + this.slave.getAddress().getHostAddress() + " - " + s + ConsoleColors.RESET);
         }
 
         /**
@@ -591,18 +1188,29 @@ public class Master implements Runnable {
          * @param s {@link String} to log as an error
          */
         private void err(String s) {
-            Utils.err("Master        - ConnectionHandler - " + this.slave.getInetAddress().getHostAddress() + " - " + s);
+            Utils.err("Master        - ConnectionHandler - " + this.slave.getAddress().getHostAddress() + " - " + s);
         }
     }
 
     /**
-     * Class to broadcast messages to every slave
+     * Class to broadcast messages to every slave. The messages that are queued
+     * within {@link MasterConfiguration#MASTER_BROADCAST_MILLIS} are sent as one
+     * {@link MultiMessage}, of the progress and the hosts list only the latest
+     * is sent. The broadcast is serialized once and queued at the channel of
+     * every slave, so a slow slave does not delay the broadcasts to the other
+     * slaves. A slave that cannot keep up with {@link MasterConfiguration#MASTER_BROADCAST_QUEUE}
+     * broadcasts is evicted like a slave whose lease expired.
      */
     private static class Broadcaster implements Runnable {
 
-        private final ConcurrentMap<InetAddress, SyncedObjectOutputStream> streams = new ConcurrentHashMap<>();
-        private final Queue<Message> queue = new LinkedList<>();
-        private boolean running = true;
+        // the message types of which only the latest message has to be sent
+        private static final Set<MessageType> SNAPSHOTS = EnumSet.of(MessageType.MASTER_PROGRESS, MessageType.MASTER_HOSTS_LIST);
+
+        private final Set<SlaveChannel> channels = ConcurrentHashMap.newKeySet();
+        private final BlockingQueue<Message> queue = new LinkedBlockingQueue<>();
+        private volatile boolean running = true;
+        // the longest time from taking a broadcast from the queue until it was sent to a slave
+        private final LongAccumulator maxLatencyNanos = new LongAccumulator(Math::max, 0);
 
         /**
          * Method for the thread to execute.
@@ -611,55 +1219,111 @@ public class Master implements Runnable {
         @Override
         public void run() {
             while (this.running) {
-                // wait until there are messages in the queue to send
-                if (this.queue.isEmpty()) {
-                    try {
-                        // noinspection BusyWait
-                        Thread.sleep(5);
-                    } catch (InterruptedException e) {
-                        log("Error while waiting - " + e);
+                // wait until there is a message in the queue to send
+                Message first;
+                try {
+                    first = this.queue.poll(100, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    log("Error while waiting - " + e);
+                    continue;
+                }
+                if (first == null) {
+                    continue;
+                }
+                long firstNanos = System.nanoTime();
+
+                // collect the messages that are queued within the coalescing window
+                List<Message> messages = new ArrayList<>();
+                messages.add(first);
+                long deadline = firstNanos + TimeUnit.MILLISECONDS.toNanos(MasterConfiguration.MASTER_BROADCAST_MILLIS);
+                try {
+                    for (long left = deadline - System.nanoTime(); left > 0; left = deadline - System.nanoTime()) {
+                        Message m = this.queue.poll(left, TimeUnit.NANOSECONDS);
+                        if (m == null) {
+                            break;
+                        }
+                        messages.add(m);
                     }
+                } catch (InterruptedException e) {
+                    log("Error while waiting - " + e);
+                }
+                this.queue.drainTo(messages);
+                MultiMessage mm = coalesce(messages);
+                ByteBuffer frame;
+                try {
+                    frame = Frames.encode(mm);
+                } catch (IOException e) {
+                    log("Failed to serialize the broadcast - " + e);
                     continue;
                 }
 
-                // put all messages to send in a multi message
-                MultiMessage mm = new MultiMessage();
-                while (!this.queue.isEmpty()) {
-                    Message m = this.queue.remove();
-                    log("broadcasting message of type: " + m.getType());
-                    mm.addMessage(m);
+                // hand the frame to the channel of every slave
+                int deepest = 0;
+                for (SlaveChannel channel : this.channels) {
+                    int depth = channel.broadcast(frame, firstNanos);
+                    if (depth > MasterConfiguration.MASTER_BROADCAST_QUEUE) {
+                        log("Dropping " + channel.getAddress().getHostAddress() + " - " + MasterConfiguration.MASTER_BROADCAST_QUEUE + " broadcasts are not sent yet");
+                        this.removeChannel(channel);
+                        channel.drop();
+                    }
+                    deepest = Math.max(deepest, depth);
                 }
+                log("broadcasting " + mm.getAllMessages().size() + " of " + messages.size() + " messages to "
+                        + this.channels.size() + " slaves - the deepest queue holds " + deepest + " broadcasts");
+            }
 
-                // send the multi message to all slaves
-                for (InetAddress i : this.streams.keySet()) {
-                    try {
-                        this.streams.get(i).writeSyncedObjectFlush(mm);
-                    } catch (IOException e) {
-                        log("Failed to send to " + i.getHostAddress() + " - " + e);
-                    }
+            for (SlaveChannel channel : this.channels) {
+                this.maxLatencyNanos.accumulate(channel.getMaxLatencyNanos());
+            }
+            log(String.format("The longest broadcast took %.3fms", this.maxLatencyNanos.get() / 1e6));
+        }
+
+        /**
+         * Put the messages of a broadcast in a {@link MultiMessage}. Of every
+         * type in {@link #SNAPSHOTS} only the latest message is kept.
+         *
+         * @param messages the messages in the order they have been queued
+         * @return the {@link MultiMessage} to send
+         */
+        private static MultiMessage coalesce(List<Message> messages) {
+            Set<MessageType> seen = EnumSet.noneOf(MessageType.class);
+            LinkedList<Message> kept = new LinkedList<>();
+            for (ListIterator<Message> it = messages.listIterator(messages.size()); it.hasPrevious(); ) {
+                Message m = it.previous();
+                if (SNAPSHOTS.contains(m.getType()) && !seen.add(m.getType())) {
+                    // replaced by a later message of the same type
+                    continue;
                 }
+                kept.addFirst(m);
             }
+            MultiMessage mm = new MultiMessage();
+            for (Message m : kept) {
+                log("broadcasting message of type: " + m.getType());
+                mm.addMessage(m);
+            }
+            return mm;
         }
 
         /**
-         * Add an {@link SyncedObjectOutputStream} to send the broadcasts to
+         * Add the {@link SlaveChannel} of a slave to send the broadcasts to
          *
-         * @param address {@link InetAddress} of the slave
-         * @param stream {@link SyncedObjectOutputStream} the output stream of the slave to add
+         * @param channel {@link SlaveChannel} of the slave to add
          */
-        public synchronized void addOutputStream(InetAddress address, SyncedObjectOutputStream stream) {
-            log("Adding stream for broadcasting: " + address.getHostAddress());
-            this.streams.put(address, stream);
+        public void addChannel(SlaveChannel channel) {
+            log("Adding stream for broadcasting: " + channel.getAddress().getHostAddress());
+            this.channels.add(channel);
         }
 
         /**
          * Remove a slave
          *
-         * @param address {@link InetAddress} of the slave to remove
+         * @param channel {@link SlaveChannel} of the slave to remove
          */
-        public synchronized void removeOutputStream(InetAddress address) {
-            log("Removing stream for broadcasting: " + address.getHostAddress());
-            this.streams.remove(address);
+        public void removeChannel(SlaveChannel channel) {
+            if (this.channels.remove(channel)) {
+                log("Removing stream for broadcasting: " + channel.getAddress().getHostAddress());
+                this.maxLatencyNanos.accumulate(channel.getMaxLatencyNanos());
+            }
         }
 
         /**
@@ -667,7 +1331,7 @@ public class Master implements Runnable {
          *
          * @param m {@link Message} submit a message to broadcast to the slaves
          */
-        public synchronized void send(Message m) {
+        public void send(Message m) {
             log("queued message of type: " + m.getType());
             this.queue.add(m);
         }
@@ -684,7 +1348,7 @@ public class Master implements Runnable {
         /**
          * Stop the running broadcaster
          */
-        public synchronized void stop() {
+        public void stop() {
             this.running = false;
         }
     }
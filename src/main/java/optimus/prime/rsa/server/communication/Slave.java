@@ -6,7 +6,13 @@ import optimus.prime.rsa.MultiMessage;
 import optimus.prime.rsa.payloads.*;
 import optimus.prime.rsa.server.config.MasterConfiguration;
 import optimus.prime.rsa.server.config.SlaveConfiguration;
-import optimus.prime.rsa.server.crypto.Worker;
+import optimus.prime.rsa.server.crypto.KeyRing;
+import optimus.prime.rsa.server.crypto.PrimeStore;
+import optimus.prime.rsa.server.crypto.ProductTree;
+import optimus.prime.rsa.server.crypto.ResidueIndex;
+import optimus.prime.rsa.server.crypto.SliceCursor;
+import optimus.prime.rsa.server.crypto.SliceTask;
+import optimus.prime.rsa.server.crypto.WorkerStatistics;
 import optimus.prime.rsa.server.config.NetworkConfiguration;
 import optimus.prime.rsa.server.config.StaticConfiguration;
 import optimus.prime.rsa.ConsoleColors;
@@ -14,6 +20,8 @@ import optimus.prime.rsa.server.Main;
 import optimus.prime.rsa.server.Utils;
 
 import java.io.*;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.util.*;
 import java.util.concurrent.*;
@@ -24,15 +32,26 @@ import java.util.concurrent.*;
 public class Slave implements Runnable {
 
     private Socket socket;
-    private ObjectOutputStream objectOutputStream;
+    private SyncedObjectOutputStream objectOutputStream;
     private Thread receiveThread;
-    private ExecutorService es;
-    private CompletionService<SolutionPayload> cs;
+    private ForkJoinPool pool;
+    private CompletionService<List<SolutionPayload>> cs;
 
-    private Queue<SlicePayload> currentMinorSlices;
+    // the slices that have been received but not handed to the workers yet
+    private final Queue<SlicePayload> slices = new ConcurrentLinkedQueue<>();
+    // the tasks of the slices that the workers are working on, their tails can be split off
+    private final List<SliceTask> tasks = new ArrayList<>();
+
+    // the measured throughput of the workers, reported to the master
+    private double checksPerSecond = 0;
+    // the checks of the finished slices and the time the workers have been busy with them
+    private long busyChecks = 0;
+    private long busyNanos = 0;
+    private long lastFinishedNanos = 0;
 
     private boolean running = true;
-    private boolean missionStarted = false;
+    // set by the receiver or by the pool once the slave is ready for the first slices
+    private volatile boolean missionStarted = false;
 
     /**
      * Create a new {@link Slave}
@@ -42,24 +61,25 @@ public class Slave implements Runnable {
         try {
             // try to connect to the master
             log("trying to connect to master ...");
-            this.socket = new Socket(
-                    NetworkConfiguration.masterAddress,
-                    StaticConfiguration.PORT
+            this.socket = new Socket();
+            // a host that is down does not refuse the connection, so give up after a while
+            this.socket.connect(
+                    new InetSocketAddress(NetworkConfiguration.masterAddress, StaticConfiguration.PORT),
+                    StaticConfiguration.MASTER_RESTART_TIMEOUT
             );
             log("established connection to master");
 
-            // create a new thread pool to execute the workers
-            this.es = Executors.newFixedThreadPool(SlaveConfiguration.WORKERS);
-            this.cs = new ExecutorCompletionService<>(es);
+            // create a new work-stealing pool to execute the workers
+            this.pool = new ForkJoinPool(SlaveConfiguration.WORKERS);
+            this.cs = new ExecutorCompletionService<>(this.pool);
 
-            // make the stream for communication ready
-            InputStream inputStream = this.socket.getInputStream();
-            ObjectInputStream objectInputStream = new ObjectInputStream(inputStream);
+            // make the stream for communication ready, the messages are sent as frames
+            DataInputStream inputStream = new DataInputStream(new BufferedInputStream(this.socket.getInputStream()));
             OutputStream outputStream = this.socket.getOutputStream();
-            this.objectOutputStream = new ObjectOutputStream(outputStream);
+            this.objectOutputStream = new SyncedObjectOutputStream(outputStream);
 
             // start the receiver
-            Receiver receiver = new Receiver(objectInputStream);
+            Receiver receiver = new Receiver(inputStream);
             this.receiveThread = new Thread(receiver);
         } catch (IOException e) {
             err("The master " + NetworkConfiguration.masterAddress.getHostAddress() + " is probably not reachable - " + e);
@@ -86,61 +106,115 @@ public class Slave implements Runnable {
             log("Sending hello message to master");
 
             // sending join message to the master with the number of workers
-            JoinPayload joinPayload = new JoinPayload(SlaveConfiguration.WORKERS);
+            // and the number of slices to prefetch
+            JoinPayload joinPayload = new JoinPayload(SlaveConfiguration.WORKERS, SlaveConfiguration.PREFETCHED_SLICES);
             Message joinMessage = new Message(MessageType.SLAVE_JOIN, joinPayload);
-            this.objectOutputStream.writeObject(joinMessage);
-            this.objectOutputStream.flush();
+            this.objectOutputStream.writeSyncedObjectFlush(joinMessage);
+
+            // the tasks that have been handed to the workers by their results
+            Map<Future<List<SolutionPayload>>, SliceTask> slicesInProgress = new HashMap<>();
+            long busyStart = 0;
+            long heartbeatNanos = System.nanoTime();
 
-            outerLoop:
             while (this.running) {
 
-                // wait for the slice queue to get filled
-                while ((this.currentMinorSlices == null || this.currentMinorSlices.isEmpty()) && !this.socket.isClosed()) {
+                // renew the leases of the slices, otherwise the master
+                // hands them to other slaves after a while
+                if (System.nanoTime() - heartbeatNanos >= TimeUnit.MILLISECONDS.toNanos(SlaveConfiguration.HEARTBEAT_MILLIS)) {
+                    if (!this.sendCheckpoints()) {
+                        Message heartbeatMessage = new Message(MessageType.SLAVE_HEARTBEAT);
+                        this.objectOutputStream.writeSyncedObjectFlush(heartbeatMessage);
+                    }
+                    heartbeatNanos = System.nanoTime();
+                }
+
+                // hand the next slice to the workers as soon as they have claimed every
+                // row of their current slice, so that they continue with it when they run
+                // out of rows. The prefetched slices wait, so they are done in the order
+                // they have been assigned and can still be given up entirely.
+                SlicePayload majorSlice;
+                while (slicesInProgress.values().stream().allMatch(SliceTask::isClaimed)) {
+                    SliceTask task;
+                    synchronized (this.tasks) {
+                        majorSlice = this.slices.poll();
+                        if (majorSlice == null) {
+                            break;
+                        }
+                        // the workers split the slice among themselves while working on it
+                        task = new SliceTask(
+                                majorSlice,
+                                SlaveConfiguration.primeStore,
+                                SlaveConfiguration.keyRing,
+                                StaticConfiguration.SEARCH_MODE,
+                                SlaveConfiguration.productTree,
+                                SlaveConfiguration.PAIR_KERNEL,
+                                SlaveConfiguration.WORKERS
+                        );
+                        this.tasks.add(task);
+                    }
+                    if (slicesInProgress.isEmpty()) {
+                        busyStart = System.nanoTime();
+                    }
+                    log("Assigning new work to the workers - " + majorSlice);
+                    try {
+                        slicesInProgress.put(this.cs.submit(task::invoke), task);
+                    } catch (RejectedExecutionException e) {
+                        // the workers have been cancelled in the meantime
+                        log("workers have been cancelled");
+                        break;
+                    }
+                }
+
+                if (slicesInProgress.isEmpty()) {
+                    // wait for a new slice
                     // noinspection BusyWait
                     Thread.sleep(5);
-                    if (missionStarted) {
-                        // if the mission is being started, request the first slice
+                    if (missionStarted && !this.socket.isClosed()) {
+                        // if the mission is being started, request the first slices
                         // from the master
                         Message m = new Message(MessageType.SLAVE_GET_FIRST_SLICE);
-                        this.objectOutputStream.writeObject(m);
-                        this.objectOutputStream.flush();
+                        this.objectOutputStream.writeSyncedObjectFlush(m);
                         missionStarted = false;
-                        continue outerLoop;
                     }
+                    continue;
                 }
 
-                log("Assigning new work to the workers ...");
-                int concurrentSlices = this.currentMinorSlices == null ? 0 : this.currentMinorSlices.size();
-                // assign work to the workers
-                while (this.currentMinorSlices != null && !this.currentMinorSlices.isEmpty()) {
-                    this.cs.submit(new Worker(
-                            this.currentMinorSlices.remove(),
-                            StaticConfiguration.primes,
-                            StaticConfiguration.PUB_RSA_KEY
-                    ));
+                // wait for a slice to be done, but keep handing out new slices
+                Future<List<SolutionPayload>> f = this.cs.poll(5, TimeUnit.MILLISECONDS);
+                if (f == null) {
+                    continue;
+                }
+                SliceTask task = slicesInProgress.remove(f);
+                synchronized (this.tasks) {
+                    // the tail could have been split off while working on the slice,
+                    // so the master only knows the slice without the tail
+                    this.tasks.remove(task);
+                    majorSlice = task.getSlice();
+                }
+                this.measureThroughput(majorSlice, busyStart);
+                if (slicesInProgress.isEmpty()) {
+                    // the workers had no slice to work on from now on
+                    WorkerStatistics.recordRound(System.nanoTime() - busyStart);
                 }
 
-                // collect all the results
-                for (int resultsReceived = 0; resultsReceived < concurrentSlices && this.running; resultsReceived++) {
-                    try {
-                        Future<SolutionPayload> f = this.cs.take();
-                        SolutionPayload s = f.get();
-                        log("received new result from a worker");
-                        // Solution found
-                        if (s != null) {
-                            // tell the master, that we have found the solution
-                            Message m = new Message(MessageType.SLAVE_SOLUTION_FOUND, s);
-                            this.objectOutputStream.writeObject(m);
-                            this.objectOutputStream.flush();
-                            // stop the main loop
-                            this.running = false;
-                            log("worker found a solution! " + s);
-                        }
-                    } catch (ExecutionException e) {
+                // collect the results
+                try {
+                    // the solutions that have not been sent with a checkpoint
+                    List<SolutionPayload> solutions = f.get();
+                    log("received new result from the workers - " + majorSlice);
+                    this.sendSolutions(solutions);
+                } catch (CancellationException e) {
+                    // the workers have been stopped by stopSlave
+                    log("workers have been cancelled");
+                } catch (ExecutionException e) {
+                    if (this.running) {
                         // a serious error --> exit
                         err("Error in Worker: " + e);
                         e.printStackTrace();
                         this.running = false;
+                    } else {
+                        // the subtasks have been cancelled by stopSlave
+                        log("workers have been cancelled");
                     }
                 }
 
@@ -148,20 +222,24 @@ public class Slave implements Runnable {
                 // given slice. Skip this if running is false, because then
                 // the slave is exiting, and we don't want any more work.
                 if (this.running) {
-                    Message m = new Message(MessageType.SLAVE_FINISHED_WORK);
-                    this.objectOutputStream.writeObject(m);
-                    this.objectOutputStream.flush();
-                    log("finished work");
+                    FinishedWorkPayload finishedWorkPayload = new FinishedWorkPayload(majorSlice, this.checksPerSecond);
+                    Message m = new Message(MessageType.SLAVE_FINISHED_WORK, finishedWorkPayload);
+                    this.objectOutputStream.writeSyncedObjectFlush(m);
+                    log("finished work - " + majorSlice);
                 }
             }
             log("stopped");
+            log("worker statistics - " + WorkerStatistics.summary());
+            for (String utilisation : WorkerStatistics.utilisation()) {
+                log("worker utilisation - " + utilisation);
+            }
 
-            // executor service could already be shutdown by
+            // pool could already be shutdown by
             // the stopSlave method
-            if (!this.es.isShutdown()) {
-                this.es.shutdownNow();
+            if (!this.pool.isShutdown()) {
+                this.pool.shutdownNow();
                 //noinspection ResultOfMethodCallIgnored
-                this.es.awaitTermination(10, TimeUnit.SECONDS);
+                this.pool.awaitTermination(10, TimeUnit.SECONDS);
             }
 
             // wait for the receiver to terminate
@@ -171,16 +249,223 @@ public class Slave implements Runnable {
 
         } catch (IOException | InterruptedException e) {
             err("An error occurred." + e);
+            // the receiver notices that the connection is closed and reports
+            // to the main thread whether the slave joins the master again
+            this.stopSlave(true);
+            try {
+                this.receiveThread.join();
+            } catch (InterruptedException ignored) {
+            }
         }
     }
 
     /**
-     * Supply a new major slice that the slave has to work on
+     * Tell the master about the solutions that the workers have found
+     *
+     * @param solutions the {@link SolutionPayload}s that have been found, may be empty
+     * @throws IOException if the solutions cannot be sent
+     */
+    private void sendSolutions(List<SolutionPayload> solutions) throws IOException {
+        // Solutions found
+        for (SolutionPayload s : solutions) {
+            // tell the master, that we have found a solution
+            Message m = new Message(MessageType.SLAVE_SOLUTION_FOUND, s);
+            this.objectOutputStream.writeSyncedObjectFlush(m);
+            log("worker found a solution! " + s);
+        }
+        // stop the main loop if there are no more keys to crack
+        if (!solutions.isEmpty() && !SlaveConfiguration.keyRing.hasOutstanding()) {
+            this.running = false;
+        }
+    }
+
+    /**
+     * Report the rows of the slices that the workers have inspected since the
+     * last checkpoint, so that the master only has to hand out the rest of the
+     * slices if this slave dies. The solutions found in these rows are sent
+     * before. The checkpoints are sent while holding the lock of the tasks,
+     * so the master knows about a split before it gets a checkpoint of the kept part.
+     *
+     * @return true, if at least one checkpoint has been sent
+     * @throws IOException if the checkpoints cannot be sent
+     */
+    private boolean sendCheckpoints() throws IOException {
+        boolean sent = false;
+        synchronized (this.tasks) {
+            for (SliceTask task : this.tasks) {
+                List<SolutionPayload> solutions = new ArrayList<>();
+                List<SlicePayload> completed = task.checkpoint(solutions);
+                this.sendSolutions(solutions);
+                if (completed == null) {
+                    continue;
+                }
+                CheckpointPayload checkpointPayload = new CheckpointPayload(task.getSlice(), completed);
+                Message checkpointMessage = new Message(MessageType.SLAVE_CHECKPOINT, checkpointPayload);
+                this.objectOutputStream.writeSyncedObjectFlush(checkpointMessage);
+                sent = true;
+            }
+        }
+        return sent;
+    }
+
+    /**
+     * Update the measured throughput of the workers with a finished slice. The
+     * throughput is the number of checks of all finished slices divided by the
+     * time the workers have been busy. The time since the workers became busy or
+     * since the previous slice has been finished is counted once, even though the
+     * next slice is started while the workers finish the last rows of a slice.
+     *
+     * @param majorSlice the rows of the slice that have been inspected
+     * @param busyStart the time the workers became busy
+     */
+    private void measureThroughput(SlicePayload majorSlice, long busyStart) {
+        long now = System.nanoTime();
+        long nanos = now - Math.max(busyStart, this.lastFinishedNanos);
+        this.lastFinishedNanos = now;
+        if (nanos <= 0 || SlaveConfiguration.keyRing == null || !SlaveConfiguration.keyRing.hasOutstanding()) {
+            return;
+        }
+
+        // the slice of an abandoned task can be empty
+        if (majorSlice.getEnd() >= majorSlice.getStart()) {
+            // the number of pairs of a row of the pair scan depends on the number of primes
+            int numberOfPrimes = SlaveConfiguration.primeStore == null ? 0 : SlaveConfiguration.primeStore.size();
+            this.busyChecks += Utils.getChecks(majorSlice, numberOfPrimes, StaticConfiguration.SEARCH_MODE.isLinear());
+        }
+        this.busyNanos += nanos;
+        this.checksPerSecond = this.busyChecks / (this.busyNanos / 1e9);
+    }
+
+    /**
+     * Split off the tail of a slice that has not been started yet, so that the
+     * master can hand it to an idle slave. A prefetched slice is given up entirely,
+     * unless it is the only work of the slave.
+     * The answer is sent while holding the lock of the tasks, so the master knows
+     * about the split before the slice is reported as finished.
+     *
+     * @param slice the slice to split
+     */
+    private void splitSlice(SlicePayload slice) {
+        synchronized (this.tasks) {
+            SlicePayload kept = null;
+            SlicePayload tail = null;
+            if (this.slices.remove(slice)) {
+                // the workers have not started the slice yet
+                tail = slice;
+                if (this.tasks.isEmpty() && this.slices.isEmpty()) {
+                    // giving up the only slice would just make this slave idle
+                    boolean linear = StaticConfiguration.SEARCH_MODE.isLinear();
+                    SliceCursor cursor = new SliceCursor(slice, linear ? 0 : SlaveConfiguration.primeStore.size(), linear, SlaveConfiguration.WORKERS);
+                    SlicePayload splitTail = cursor.splitTail();
+                    if (splitTail != null) {
+                        kept = cursor.getSlice();
+                        tail = splitTail;
+                    } else {
+                        kept = slice;
+                        tail = null;
+                    }
+                    this.slices.add(kept);
+                }
+            } else {
+                for (SliceTask task : this.tasks) {
+                    if (task.getSlice().equals(slice)) {
+                        tail = task.splitTail();
+                        kept = task.getSlice();
+                        break;
+                    }
+                }
+            }
+            log("split " + slice + " - keeping " + kept + ", giving up " + tail);
+
+            SplitPayload splitPayload = new SplitPayload(slice, kept, tail);
+            Message m = new Message(MessageType.SLAVE_SPLIT_ACKNOWLEDGE, splitPayload);
+            try {
+                this.objectOutputStream.writeSyncedObjectFlush(m);
+            } catch (IOException e) {
+                err("failed to send SLAVE_SPLIT_ACKNOWLEDGE - " + e);
+            }
+        }
+    }
+
+    /**
+     * Stop working on a slice, because the backup of the slice on another
+     * slave finished first. The rows that the workers have not claimed yet are
+     * dropped, the claimed chunks are finished. The answer tells the master how
+     * far the slave got with the slice.
+     *
+     * @param slice the slice to cancel
+     */
+    private void cancelSlice(SlicePayload slice) {
+        synchronized (this.tasks) {
+            SlicePayload kept = null;
+            SlicePayload tail = null;
+            if (this.slices.remove(slice)) {
+                // the workers have not started the slice yet
+                tail = slice;
+            } else {
+                for (SliceTask task : this.tasks) {
+                    if (task.getSlice().equals(slice)) {
+                        tail = task.abandon();
+                        kept = task.getSlice();
+                        break;
+                    }
+                }
+            }
+            log("cancelled " + slice + " - finishing " + kept + ", dropping " + tail);
+
+            SplitPayload splitPayload = new SplitPayload(slice, kept, tail);
+            Message m = new Message(MessageType.SLAVE_CANCEL_SLICE_ACKNOWLEDGE, splitPayload);
+            try {
+                this.objectOutputStream.writeSyncedObjectFlush(m);
+            } catch (IOException e) {
+                err("failed to send SLAVE_CANCEL_SLICE_ACKNOWLEDGE - " + e);
+            }
+        }
+    }
+
+    /**
+     * Supply a new major slice that the slave has to work on. The slice is
+     * handed to the workers once they have claimed every row of the slices before.
      *
      * @param majorSlice the major slice that the slave has to work on
      */
-    private synchronized void setCurrentSlice(SlicePayload majorSlice) {
-        this.currentMinorSlices = Utils.getNSlices(majorSlice, SlaveConfiguration.WORKERS);
+    private void addSlice(SlicePayload majorSlice) {
+        this.slices.add(majorSlice);
+    }
+
+    /**
+     * Cancel all slices immediately, because the mission is solved. The workers
+     * are interrupted instead of finishing their slices and the time they need
+     * to stop is acknowledged to the master.
+     */
+    private void cancelWork() {
+        long start = System.nanoTime();
+        // no more slices for the workers and no more work for the main loop
+        this.slices.clear();
+        this.running = false;
+
+        // cancel all tasks and interrupt all workers in
+        // the pool to stop them within a row
+        log("cancelling workers ...");
+        this.pool.shutdownNow();
+        try {
+            if (!this.pool.awaitTermination(10, TimeUnit.SECONDS)) {
+                err("workers did not stop within 10 seconds");
+            }
+        } catch (InterruptedException e) {
+            err("error while cancelling workers - " + e);
+        }
+        long quiesceNanos = System.nanoTime() - start;
+        log(String.format("workers stopped after %.3fms", quiesceNanos / 1e6));
+
+        log("sending SLAVE_CANCEL_ACKNOWLEDGE");
+        CancelAcknowledgePayload cancelAcknowledgePayload = new CancelAcknowledgePayload(quiesceNanos);
+        Message m = new Message(MessageType.SLAVE_CANCEL_ACKNOWLEDGE, cancelAcknowledgePayload);
+        try {
+            this.objectOutputStream.writeSyncedObjectFlush(m);
+        } catch (IOException e) {
+            err("failed to send SLAVE_CANCEL_ACKNOWLEDGE - " + e);
+        }
     }
 
     /**
@@ -193,8 +478,7 @@ public class Slave implements Runnable {
             log("sending SLAVE_EXIT_ACKNOWLEDGE");
             Message m = new Message(MessageType.SLAVE_EXIT_ACKNOWLEDGE);
             try {
-                this.objectOutputStream.writeObject(m);
-                this.objectOutputStream.flush();
+                this.objectOutputStream.writeSyncedObjectFlush(m);
                 this.socket.close();
             } catch (IOException ignored) {
                 err("failed to send SLAVE_EXIT_ACKNOWLEDGE");
@@ -212,13 +496,13 @@ public class Slave implements Runnable {
         this.running = false;
 
         if (force) {
-            // interrupt all workers in the thread pool to
-            // shut them down immediately
+            // cancel all tasks and interrupt all workers in
+            // the pool to shut them down immediately
             log("sending interrupting workers ...");
-            this.es.shutdownNow();
+            this.pool.shutdownNow();
             try {
                 // noinspection ResultOfMethodCallIgnored
-                this.es.awaitTermination(10, TimeUnit.SECONDS);
+                this.pool.awaitTermination(10, TimeUnit.SECONDS);
                 log("interrupting off all workers is done");
             } catch (InterruptedException e) {
                 err("error while interrupting workers - " + e);
@@ -250,15 +534,15 @@ public class Slave implements Runnable {
     private class Receiver implements Runnable {
 
         private boolean running = true;
-        private final ObjectInputStream objectInputStream;
+        private final DataInputStream inputStream;
 
         /**
          * Create a new {@link Receiver}
          *
-         * @param objectInputStream the {@link ObjectOutputStream} used for receiving
+         * @param inputStream the {@link DataInputStream} used for receiving the frames
          */
-        public Receiver(ObjectInputStream objectInputStream) {
-            this.objectInputStream = objectInputStream;
+        public Receiver(DataInputStream inputStream) {
+            this.inputStream = inputStream;
         }
 
         /**
@@ -270,15 +554,16 @@ public class Slave implements Runnable {
             try {
                 while (this.running) {
                     // wait for a message
-                    MultiMessage messages = (MultiMessage) this.objectInputStream.readObject();
+                    MultiMessage messages = (MultiMessage) Frames.read(this.inputStream);
                     // handle the message
                     this.handleMessages(messages);
                 }
             } catch (IOException | ClassNotFoundException e) {
                 if (this.running) {
                     err("lost connection to master - " + e);
-                    log("reporting lost connection to main thread");
-                    Main.reportMasterLost();
+                    // the master is only lost, if the slave cannot join it again
+                    log("reporting disconnect to main thread");
+                    Main.reportDisconnected();
                     stopSlave(true);
                 } else {
                     log("stopped on purpose");
@@ -302,20 +587,35 @@ public class Slave implements Runnable {
                     case MASTER_DO_WORK:
                         this.handleDoWork(m);
                         break;
+                    case MASTER_CANCEL:
+                        this.handleCancel();
+                        break;
+                    case MASTER_SPLIT_REQUEST:
+                        this.handleSplitRequest(m);
+                        break;
+                    case MASTER_CANCEL_SLICE:
+                        this.handleCancelSlice(m);
+                        break;
                     case MASTER_EXIT:
                         this.stopReceiver();
                         break;
+                    case MASTER_EVICT:
+                        this.handleEvict();
+                        break;
                     case MASTER_SEND_PRIMES:
                         this.handleMasterSendPrimes(m);
                         break;
-                    case MASTER_SEND_PUB_KEY_RSA:
-                        this.handleMasterSendPubKeyRsa(m);
+                    case MASTER_SEND_KEYS:
+                        this.handleMasterSendKeys(m);
                         break;
                     case MASTER_PROGRESS:
                         this.handleProgressUpdate(m);
                         break;
-                    case MASTER_CIPHER:
-                        this.handleCipher(m);
+                    case MASTER_KEY_SOLVED:
+                        this.handleKeySolved(m);
+                        break;
+                    case MASTER_SEND_SEARCH_MODE:
+                        this.handleSearchMode(m);
                         break;
                     case MASTER_START_MILLIS:
                         this.handleStartMillis(m);
@@ -348,7 +648,7 @@ public class Slave implements Runnable {
          */
         private void handleDoWork(Message m) {
             SlicePayload slicePayload = (SlicePayload) m.getPayload();
-            setCurrentSlice(slicePayload);
+            addSlice(slicePayload);
             log("Received new slice to do - " + slicePayload);
         }
 
@@ -365,25 +665,47 @@ public class Slave implements Runnable {
             } else {
                 log("skip updating primes because master is the same host");
             }
+            // prepare the primes for the workers
+            SlaveConfiguration.primeStore = new PrimeStore(StaticConfiguration.primes);
+            log("prepared primes for the workers - compact: " + SlaveConfiguration.primeStore.isCompact()
+                    + ", residue buckets: " + ResidueIndex.MODULUS);
         }
 
         /**
-         * Save the public key
+         * Save the public keys
          *
-         * @param m {@link Message} of type MASTER_SEND_PUB_KEY_RSA
+         * @param m {@link Message} of type MASTER_SEND_KEYS
          */
-        private void handleMasterSendPubKeyRsa(Message m) {
-            PubKeyRsaPayload pubKeyRsaPayload = (PubKeyRsaPayload) m.getPayload();
+        private void handleMasterSendKeys(Message m) {
+            KeysPayload keysPayload = (KeysPayload) m.getPayload();
             if (!MasterConfiguration.isMaster) {
-                log("set public key to \"" + pubKeyRsaPayload.getPubKeyRsa() + "\"");
-                StaticConfiguration.PUB_RSA_KEY = pubKeyRsaPayload.getPubKeyRsa();
+                StaticConfiguration.keys = keysPayload.getKeys();
+                log("set keys - count: " + StaticConfiguration.keys.size());
             } else {
-                log("skip updating public key because master is the same host");
+                log("skip updating keys because master is the same host");
             }
+            // prepare the keys for the workers
+            KeyRing keyRing = new KeyRing(this.getPubRsaKeys());
+            // keys could have been solved before the keys arrived
+            MasterConfiguration.solutions.keySet().forEach(keyRing::markSolved);
+            SlaveConfiguration.keyRing = keyRing;
+            log("prepared keys for the workers - outstanding: " + keyRing.getOutstanding());
         }
 
         /**
-         * Save the current progress
+         * Get the public keys of the mission
+         *
+         * @return the public keys in the order of the mission
+         */
+        private List<BigInteger> getPubRsaKeys() {
+            List<BigInteger> pubRsaKeys = new ArrayList<>();
+            StaticConfiguration.keys.forEach(k -> pubRsaKeys.add(k.getPubKeyRsa()));
+            return pubRsaKeys;
+        }
+
+        /**
+         * Save the current progress. The ledger is only built from it,
+         * if this host becomes the master.
          *
          * @param m {@link Message} of type MASTER_PROGRESS
          */
@@ -391,25 +713,42 @@ public class Slave implements Runnable {
             ProgressPayload progressPayload = (ProgressPayload) m.getPayload();
             if (!MasterConfiguration.isMaster) {
                 log("received update of progress");
-                MasterConfiguration.lostSlices = progressPayload.getLostSlices();
-                MasterConfiguration.currentSliceStart = progressPayload.getCurrentSliceStart();
+                MasterConfiguration.progress = progressPayload;
             } else {
                 log("skip updating progress because master is the same host");
             }
         }
 
         /**
-         * Save the cipher
+         * Save a solved key, so that the workers stop testing against it
+         *
+         * @param m {@link Message} of type MASTER_KEY_SOLVED
+         */
+        private void handleKeySolved(Message m) {
+            SolutionPayload solution = (SolutionPayload) m.getPayload();
+            if (!MasterConfiguration.isMaster) {
+                log("received solved key: " + solution.getPubKeyRsa());
+                MasterConfiguration.solutions.put(solution.getPubKeyRsa(), solution);
+            } else {
+                log("skip updating solutions because master is the same host");
+            }
+            if (SlaveConfiguration.keyRing != null) {
+                SlaveConfiguration.keyRing.markSolved(solution.getPubKeyRsa());
+            }
+        }
+
+        /**
+         * Save the search mode
          *
-         * @param m {@link Message} of type MASTER_CIPHER
+         * @param m {@link Message} of type MASTER_SEND_SEARCH_MODE
          */
-        private void handleCipher(Message m) {
-            CipherPayload cipherPayload = (CipherPayload) m.getPayload();
+        private void handleSearchMode(Message m) {
+            SearchModePayload searchModePayload = (SearchModePayload) m.getPayload();
             if (!MasterConfiguration.isMaster) {
-                log("received cipher: \"" + cipherPayload.getCipher() + "\"");
-                StaticConfiguration.CIPHER = cipherPayload.getCipher();
+                log("received search mode: " + searchModePayload.getSearchMode());
+                StaticConfiguration.SEARCH_MODE = searchModePayload.getSearchMode();
             } else {
-                log("skip updating cipher because master is the same host");
+                log("skip updating search mode because master is the same host");
             }
         }
 
@@ -429,13 +768,88 @@ public class Slave implements Runnable {
         }
 
         /**
-         * Start the mission
+         * Start the mission. The product tree of the batch GCD is built by the pool
+         * of the workers, so that the receiver keeps handling the messages of the
+         * master, and the first slices are requested as soon as it is done.
          */
         private void handleStartMessage() {
+            if (StaticConfiguration.SEARCH_MODE.usesPrimes() || SlaveConfiguration.productTree != null) {
+                // the tree of the mission is kept if the slave joins again
+                log("starting the mission");
+                missionStarted = true;
+                return;
+            }
+            List<BigInteger> pubRsaKeys = this.getPubRsaKeys();
+            try {
+                pool.execute(() -> this.prepareProductTree(pubRsaKeys));
+            } catch (RejectedExecutionException e) {
+                log("workers have been cancelled");
+            }
+        }
+
+        /**
+         * Build the product tree that is needed by every slice of the batch GCD
+         * once for all workers and start the mission
+         *
+         * @param pubRsaKeys the public keys of the mission
+         */
+        private void prepareProductTree(List<BigInteger> pubRsaKeys) {
+            long start = System.currentTimeMillis();
+            ProductTree productTree = new ProductTree(pubRsaKeys);
+            // the workers of the first slices need the same upper levels of the remainder tree
+            if (!productTree.prepare(SlaveConfiguration.WORKERS)) {
+                log("workers have been cancelled");
+                return;
+            }
+            SlaveConfiguration.productTree = productTree;
+            log("prepared product tree for the workers - took " + (System.currentTimeMillis() - start) + "ms");
             log("starting the mission");
             missionStarted = true;
         }
 
+        /**
+         * Give up the tail of a slice for an idle slave
+         *
+         * @param m {@link Message} of type MASTER_SPLIT_REQUEST
+         */
+        private void handleSplitRequest(Message m) {
+            SlicePayload slicePayload = (SlicePayload) m.getPayload();
+            log("Received split request - " + slicePayload);
+            splitSlice(slicePayload);
+        }
+
+        /**
+         * Stop working on a slice, because another slave finished it first
+         *
+         * @param m {@link Message} of type MASTER_CANCEL_SLICE
+         */
+        private void handleCancelSlice(Message m) {
+            SlicePayload slicePayload = (SlicePayload) m.getPayload();
+            log("Received cancel of slice - " + slicePayload);
+            cancelSlice(slicePayload);
+        }
+
+        /**
+         * Stop all workers immediately, the master sends MASTER_EXIT afterwards
+         */
+        private void handleCancel() {
+            log("MASTER_CANCEL");
+            cancelWork();
+        }
+
+        /**
+         * Leave the master quietly, because it dropped this slave, e.g. because the
+         * lease of the slave expired while it was paused. The slices of the slave have
+         * already been given to other slaves, so the workers are stopped and the slave
+         * joins the master again.
+         */
+        private void handleEvict() {
+            log("MASTER_EVICT - the master dropped this slave, joining again");
+            this.running = false;
+            Main.reportDisconnected();
+            stopSlave(true);
+        }
+
         /**
          * Stop the receiver gracefully
          */
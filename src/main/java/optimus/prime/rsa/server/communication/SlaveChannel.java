@@ -0,0 +1,412 @@
+package optimus.prime.rsa.server.communication;
+
+import optimus.prime.rsa.ConsoleColors;
+import optimus.prime.rsa.Message;
+import optimus.prime.rsa.MessageType;
+import optimus.prime.rsa.MultiMessage;
+import optimus.prime.rsa.server.Utils;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * The connection to one slave of the {@link SlaveSelector}. The frames of the
+ * slave are read without blocking and handed to its {@link Listener} on the
+ * thread of the selector. The frames to the slave can be queued by any thread,
+ * the thread of the selector writes them as soon as the slave takes them.
+ * A slave that is evicted by the master is told so with MASTER_EVICT before
+ * the connection is closed, so that it does not take the master for dead.
+ */
+class SlaveChannel {
+
+    /**
+     * Receives the messages of a slave on the thread of the {@link SlaveSelector}
+     */
+    interface Listener {
+
+        /**
+         * Handle a message of the slave
+         *
+         * @param message the {@link Message} that has been received
+         */
+        void onMessage(Message message);
+
+        /**
+         * Clean up after the connection to the slave has been closed
+         *
+         * @param cause the reason the connection has been closed, null if it has been closed on purpose
+         */
+        void onClose(IOException cause);
+    }
+
+    // the initial size of the buffer for the frames of the slave, it grows for larger frames
+    private static final int BUFFER_BYTES = 4096;
+
+    private final SocketChannel channel;
+    private final SelectionKey key;
+    private final SlaveSelector selector;
+    private final InetAddress address;
+    private Listener listener;
+    private ByteBuffer in = ByteBuffer.allocate(BUFFER_BYTES);
+    // the frames that have not been written completely yet
+    private final Queue<Frame> out = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queuedBroadcasts = new AtomicInteger();
+    private volatile boolean dropped = false;
+    // true, as soon as the listener has been told that the slave is gone
+    private boolean closed = false;
+    private boolean disconnected = false;
+    // the time the slave has been evicted, it is told so before the connection is closed
+    private volatile boolean evicted = false;
+    private long evictedNanos = 0;
+    private long lastReadNanos = System.nanoTime();
+
+    // the latency of the broadcasts to this slave and the deepest queue
+    private long sent = 0;
+    private long totalLatencyNanos = 0;
+    private volatile long maxLatencyNanos = 0;
+    private final LongAccumulator maxDepth = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Create a new {@link SlaveChannel} and register it for reading
+     *
+     * @param channel the non-blocking {@link SocketChannel} of the slave
+     * @param selector the {@link SlaveSelector} that handles the channel
+     * @throws IOException if the channel cannot be registered
+     */
+    public SlaveChannel(SocketChannel channel, SlaveSelector selector) throws IOException {
+        this.channel = channel;
+        this.selector = selector;
+        this.address = channel.socket().getInetAddress();
+        this.key = selector.register(channel, this);
+    }
+
+    /**
+     * Set the listener that handles the messages of the slave
+     *
+     * @param listener the {@link Listener}
+     */
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Get the address of the slave
+     *
+     * @return the {@link InetAddress} of the slave
+     */
+    public InetAddress getAddress() {
+        return this.address;
+    }
+
+    /**
+     * Queue an object to be sent to the slave, can be called by any thread
+     *
+     * @param obj the object to send
+     * @throws IOException if the object cannot be serialized
+     */
+    public void send(Object obj) throws IOException {
+        if (this.evicted) {
+            return;
+        }
+        this.out.add(new Frame(Frames.encode(obj), 0, false));
+        this.selector.wakeup(this);
+    }
+
+    /**
+     * Queue a broadcast to be sent to the slave, can be called by any thread
+     *
+     * @param frame the frame of the broadcast, it is shared with the other slaves and not modified
+     * @param takenNanos the time the broadcast has been taken from the queue of the broadcaster
+     * @return the number of broadcasts that wait to be sent to the slave, including this one
+     */
+    public int broadcast(ByteBuffer frame, long takenNanos) {
+        if (this.evicted) {
+            return 0;
+        }
+        int depth = this.queuedBroadcasts.incrementAndGet();
+        this.maxDepth.accumulate(depth);
+        this.out.add(new Frame(frame.duplicate(), takenNanos, true));
+        this.selector.wakeup(this);
+        return depth;
+    }
+
+    /**
+     * Evict the slave from any thread, e.g. because the slave cannot keep up.
+     * The slave is told so with MASTER_EVICT like a slave whose lease expired.
+     */
+    public void drop() {
+        this.dropped = true;
+        this.selector.wakeup(this);
+    }
+
+    /**
+     * Read the frames that the slave has sent and hand their messages to the listener
+     */
+    void read() {
+        try {
+            if (this.channel.read(this.in) < 0) {
+                this.close(new EOFException("the slave closed the connection"));
+                return;
+            }
+            if (this.evicted) {
+                // the messages of an evicted slave are not handled anymore
+                this.in.clear();
+                return;
+            }
+            this.lastReadNanos = System.nanoTime();
+            this.in.flip();
+            while (!this.closed && this.in.remaining() >= Frames.HEADER_BYTES) {
+                int length = this.in.getInt(this.in.position());
+                Frames.checkLength(length);
+                if (this.in.remaining() < Frames.HEADER_BYTES + length) {
+                    break;
+                }
+                Object message = Frames.decode(this.in.array(), this.in.position() + Frames.HEADER_BYTES, length);
+                this.in.position(this.in.position() + Frames.HEADER_BYTES + length);
+                this.listener.onMessage((Message) message);
+            }
+            if (this.closed) {
+                return;
+            }
+            this.compact();
+        } catch (IOException e) {
+            this.close(e);
+        } catch (ClassNotFoundException | ClassCastException e) {
+            this.close(new IOException("Class of incoming object unknown - " + e));
+        }
+    }
+
+    /**
+     * Keep the bytes of the incomplete frame, the buffer grows if the frame does not
+     * fit in and shrinks back as soon as it is empty
+     */
+    private void compact() {
+        int needed = this.in.remaining() >= Frames.HEADER_BYTES
+                ? Frames.HEADER_BYTES + this.in.getInt(this.in.position())
+                : BUFFER_BYTES;
+        if (needed > this.in.capacity()) {
+            ByteBuffer larger = ByteBuffer.allocate(needed);
+            larger.put(this.in);
+            this.in = larger;
+        } else if (!this.in.hasRemaining() && this.in.capacity() > BUFFER_BYTES) {
+            this.in = ByteBuffer.allocate(BUFFER_BYTES);
+        } else {
+            this.in.compact();
+        }
+    }
+
+    /**
+     * Write the queued frames as far as the slave takes them. If the slave
+     * does not take everything, the selector waits until it can write again.
+     */
+    void write() {
+        try {
+            Frame frame;
+            while ((frame = this.out.peek()) != null) {
+                this.channel.write(frame.buffer);
+                if (frame.buffer.hasRemaining()) {
+                    this.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    return;
+                }
+                this.out.poll();
+                if (frame.broadcast) {
+                    this.queuedBroadcasts.decrementAndGet();
+                    long latency = System.nanoTime() - frame.takenNanos;
+                    this.sent++;
+                    this.totalLatencyNanos += latency;
+                    this.maxLatencyNanos = Math.max(this.maxLatencyNanos, latency);
+                }
+            }
+            if (this.evicted) {
+                // MASTER_EVICT has been sent, the slave closes the connection when it reads it
+                this.channel.shutdownOutput();
+            }
+            this.key.interestOps(SelectionKey.OP_READ);
+        } catch (IOException e) {
+            this.close(e);
+        }
+    }
+
+    /**
+     * Write the queued frames or evict the slave, if it has been dropped
+     */
+    void flush() {
+        if (this.disconnected) {
+            return;
+        }
+        if (this.dropped && !this.closed) {
+            this.evict(new IOException("dropped, the slave cannot keep up with the broadcasts"));
+            return;
+        }
+        this.write();
+    }
+
+    /**
+     * Check if the lease of the slave expired
+     *
+     * @param now the current time
+     * @param leaseNanos how long a slave may be silent
+     * @return true, if the slave has not sent anything for longer than the lease
+     */
+    boolean isLeaseExpired(long now, long leaseNanos) {
+        return !this.closed && now - this.lastReadNanos > leaseNanos;
+    }
+
+    /**
+     * Check if an evicted slave had enough time to read MASTER_EVICT and to close the connection
+     *
+     * @param now the current time
+     * @param graceNanos how long the connection is kept open after the eviction
+     * @return true, if the slave has been evicted longer ago and the connection is still open
+     */
+    boolean isEvictionOver(long now, long graceNanos) {
+        return this.evicted && !this.disconnected && now - this.evictedNanos > graceNanos;
+    }
+
+    /**
+     * Evict the slave on the thread of the selector, e.g. because its lease expired.
+     * The {@link Listener} treats the slave like a dead slave right away. The frames
+     * that have not been started are not sent anymore, instead the slave is told
+     * with MASTER_EVICT that it has been dropped on purpose. The connection is closed
+     * by the slave, or by the selector if the slave does not read the message in time.
+     *
+     * @param cause the reason the slave is evicted
+     */
+    void evict(IOException cause) {
+        if (this.closed) {
+            return;
+        }
+        log("evicting the slave - " + cause.getMessage());
+        MultiMessage evictMessage = new MultiMessage();
+        evictMessage.addMessage(new Message(MessageType.MASTER_EVICT));
+        ByteBuffer frame;
+        try {
+            frame = Frames.encode(evictMessage);
+        } catch (IOException e) {
+            this.close(cause);
+            return;
+        }
+        this.evicted = true;
+        this.evictedNanos = System.nanoTime();
+        for (Iterator<Frame> it = this.out.iterator(); it.hasNext(); ) {
+            Frame queued = it.next();
+            // a frame that has been written partly has to be completed first
+            if (queued.buffer.position() == 0) {
+                it.remove();
+                if (queued.broadcast) {
+                    this.queuedBroadcasts.decrementAndGet();
+                }
+            }
+        }
+        this.out.add(new Frame(frame, 0, false));
+        this.notifyClosed(cause);
+        this.write();
+    }
+
+    /**
+     * Close the connection to the slave on the thread of the selector
+     *
+     * @param cause the reason the connection is closed, null if it is closed on purpose
+     */
+    void close(IOException cause) {
+        if (!this.disconnected) {
+            this.disconnected = true;
+            this.key.cancel();
+            try {
+                this.channel.close();
+            } catch (IOException e) {
+                err("failed to close the connection - " + e);
+            }
+            this.selector.remove(this);
+        }
+        this.notifyClosed(cause);
+    }
+
+    /**
+     * Tell the listener that the slave is gone, only the first call has an effect
+     *
+     * @param cause the reason the slave is gone, null if it left on purpose
+     */
+    private void notifyClosed(IOException cause) {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        log(String.format("Sent %d broadcasts - %.3fms on average, %.3fms at most, up to %d queued",
+                this.sent, this.sent == 0 ? 0 : this.totalLatencyNanos / 1e6 / this.sent,
+                this.maxLatencyNanos / 1e6, this.maxDepth.get()));
+        this.listener.onClose(cause);
+    }
+
+    /**
+     * Get the number of broadcasts that wait to be sent
+     *
+     * @return the depth of the queue
+     */
+    public int getQueueDepth() {
+        return this.queuedBroadcasts.get();
+    }
+
+    /**
+     * Get the longest time a broadcast took until it was sent to the slave
+     *
+     * @return the latency in nanoseconds
+     */
+    public long getMaxLatencyNanos() {
+        return this.maxLatencyNanos;
+    }
+
+    @Override
+    public String toString() {
+        return this.channel.socket().toString();
+    }
+
+    /**
+     * Use to log
+     *
+     * @param s {@link String} to log
+     */
+    private void log(String s) {
+        System.out.println(ConsoleColors.YELLOW_BRIGHT + "Master        - SlaveChannel - " + this.address.getHostAddress() + " - " + s + ConsoleColors.RESET);
+    }
+
+    /**
+     * Use to log errors
+     *
+     * @param s {@link String} to log as an error
+     */
+    private void err(String s) {
+        Utils.err("Master        - SlaveChannel - " + this.address.getHostAddress() + " - " + s);
+    }
+
+    /**
+     * A frame that is written to the slave
+     */
+    private static class Frame {
+        private final ByteBuffer buffer;
+        private final long takenNanos;
+        private final boolean broadcast;
+
+        /**
+         * Create a new {@link Frame}
+         *
+         * @param buffer the bytes of the frame, the position is moved while writing
+         * @param takenNanos the time the broadcast has been taken from the queue of the broadcaster
+         * @param broadcast true, if the frame is a broadcast
+         */
+        public Frame(ByteBuffer buffer, long takenNanos, boolean broadcast) {
+            this.buffer = buffer;
+            this.takenNanos = takenNanos;
+            this.broadcast = broadcast;
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package optimus.prime.rsa.server.communication;
+
+import optimus.prime.rsa.server.Utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.channels.*;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * The event loop of the master for the connections of the slaves. A single
+ * thread accepts the slaves, reads their frames and writes the frames to them
+ * with a non-blocking {@link Selector}, so the master does not need a thread and
+ * its stack for every slave. The thread that calls {@link #select(long)} is the
+ * thread of the selector, the messages of the slaves are handled on it.
+ */
+class SlaveSelector implements Closeable {
+
+    // how often the leases of the slaves are checked
+    private static final long LEASE_CHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    // how long an evicted slave has to read MASTER_EVICT before the connection is closed
+    private static final long EVICTION_GRACE_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final Function<SlaveChannel, SlaveChannel.Listener> onAccept;
+    private final long leaseNanos;
+    private long leaseCheckNanos = System.nanoTime();
+
+    // the connected slaves, only used by the thread of the selector
+    private final Set<SlaveChannel> channels = new HashSet<>();
+    // the slaves that have frames to write or have been dropped by another thread
+    private final Queue<SlaveChannel> pending = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Create a new {@link SlaveSelector} and open the port for the slaves
+     *
+     * @param address the {@link InetAddress} to listen on
+     * @param port the port to listen on
+     * @param backlog the maximum number of slaves that wait to be accepted
+     * @param leaseMillis how long a slave may be silent before it is dropped, 0 to disable
+     * @param onAccept creates the {@link SlaveChannel.Listener} of every slave that connects
+     * @throws IOException if the port cannot be opened
+     */
+    public SlaveSelector(InetAddress address, int port, int backlog, int leaseMillis, Function<SlaveChannel, SlaveChannel.Listener> onAccept) throws IOException {
+        this.onAccept = onAccept;
+        this.leaseNanos = TimeUnit.MILLISECONDS.toNanos(leaseMillis);
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        this.serverChannel.bind(new InetSocketAddress(address, port), backlog);
+        this.serverChannel.configureBlocking(false);
+        this.serverChannel.register(this.selector, SelectionKey.OP_ACCEPT);
+    }
+
+    /**
+     * Handle the connections that are ready, at most after the timeout.
+     * Accepts new slaves, reads and writes the frames and evicts the slaves
+     * whose lease expired.
+     *
+     * @param timeoutMillis how long to wait for a connection to be ready
+     * @throws IOException if the selector fails
+     */
+    public void select(long timeoutMillis) throws IOException {
+        this.flushPending();
+        this.selector.select(timeoutMillis);
+        for (Iterator<SelectionKey> it = this.selector.selectedKeys().iterator(); it.hasNext(); ) {
+            SelectionKey key = it.next();
+            it.remove();
+            if (!key.isValid()) {
+                continue;
+            }
+            if (key.isAcceptable()) {
+                this.accept();
+                continue;
+            }
+            SlaveChannel channel = (SlaveChannel) key.attachment();
+            if (key.isReadable()) {
+                channel.read();
+            }
+            if (key.isValid() && key.isWritable()) {
+                channel.write();
+            }
+        }
+        // the responses to the messages that have just been handled
+        this.flushPending();
+        this.expireLeases();
+    }
+
+    /**
+     * Accept the slaves that wait to be accepted
+     *
+     * @throws IOException if the server channel fails
+     */
+    private void accept() throws IOException {
+        SocketChannel socketChannel;
+        while ((socketChannel = this.serverChannel.accept()) != null) {
+            socketChannel.configureBlocking(false);
+            SlaveChannel channel = new SlaveChannel(socketChannel, this);
+            this.channels.add(channel);
+            channel.setListener(this.onAccept.apply(channel));
+        }
+    }
+
+    /**
+     * Write the frames that have been queued and close the dropped slaves
+     */
+    private void flushPending() {
+        SlaveChannel channel;
+        while ((channel = this.pending.poll()) != null) {
+            channel.flush();
+        }
+    }
+
+    /**
+     * Evict the slaves that have been silent for longer than the lease and close
+     * the connections of the evicted slaves that did not close them in time
+     */
+    private void expireLeases() {
+        long now = System.nanoTime();
+        if (now - this.leaseCheckNanos < LEASE_CHECK_NANOS) {
+            return;
+        }
+        this.leaseCheckNanos = now;
+        for (SlaveChannel channel : new ArrayList<>(this.channels)) {
+            if (channel.isEvictionOver(now, EVICTION_GRACE_NANOS)) {
+                channel.close(null);
+            } else if (this.leaseNanos > 0 && channel.isLeaseExpired(now, this.leaseNanos)) {
+                // the slave is told that it has been evicted, so that it does not take the master for dead
+                channel.evict(new SocketTimeoutException("lease expired"));
+            }
+        }
+    }
+
+    /**
+     * Register the channel of a slave for reading
+     *
+     * @param socketChannel the non-blocking {@link SocketChannel}
+     * @param channel the {@link SlaveChannel} that handles it
+     * @return the {@link SelectionKey} of the channel
+     * @throws ClosedChannelException if the channel has been closed
+     */
+    SelectionKey register(SocketChannel socketChannel, SlaveChannel channel) throws ClosedChannelException {
+        return socketChannel.register(this.selector, SelectionKey.OP_READ, channel);
+    }
+
+    /**
+     * Let the thread of the selector write the frames of a slave, can be called by any thread
+     *
+     * @param channel the {@link SlaveChannel} with frames to write
+     */
+    void wakeup(SlaveChannel channel) {
+        this.pending.add(channel);
+        this.selector.wakeup();
+    }
+
+    /**
+     * Forget a slave whose connection has been closed
+     *
+     * @param channel the {@link SlaveChannel}
+     */
+    void remove(SlaveChannel channel) {
+        this.channels.remove(channel);
+    }
+
+    /**
+     * Stop accepting new slaves, the connected slaves are still handled
+     */
+    public void stopAccepting() {
+        try {
+            this.serverChannel.close();
+        } catch (IOException e) {
+            err("failed to close the server channel - " + e);
+        }
+    }
+
+    /**
+     * Check if new slaves are accepted
+     *
+     * @return true, if the port is open
+     */
+    public boolean isOpen() {
+        return this.serverChannel.isOpen();
+    }
+
+    /**
+     * Get the number of connected slaves
+     *
+     * @return the number of slaves
+     */
+    public int getConnections() {
+        return this.channels.size();
+    }
+
+    /**
+     * Get the address that the slaves connect to
+     *
+     * @return the {@link SocketAddress} of the port
+     * @throws IOException if the port is closed
+     */
+    public SocketAddress getLocalAddress() throws IOException {
+        return this.serverChannel.getLocalAddress();
+    }
+
+    /**
+     * Close the connections of all slaves and the selector
+     *
+     * @throws IOException if the selector cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        this.stopAccepting();
+        for (SlaveChannel channel : new ArrayList<>(this.channels)) {
+            channel.close(null);
+        }
+        this.selector.close();
+    }
+
+    /**
+     * Use to log errors
+     *
+     * @param s {@link String} to log as an error
+     */
+    private static void err(String s) {
+        Utils.err("Master        - SlaveSelector - " + s);
+    }
+}
@@ -1,27 +1,31 @@
 package optimus.prime.rsa.server.communication;
 
+import java.io.BufferedOutputStream;
 import java.io.IOException;
-import java.io.ObjectOutputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 /**
- * A special version of an {@link ObjectOutputStream} of which you
- * don't have to worry about using in different threads
+ * A stream that writes every object as a frame (see {@link Frames}), of which
+ * you don't have to worry about using in different threads
  */
-class SyncedObjectOutputStream extends ObjectOutputStream {
+class SyncedObjectOutputStream {
 
-    public SyncedObjectOutputStream(OutputStream out) throws IOException {
-        super(out);
+    private final OutputStream out;
+
+    public SyncedObjectOutputStream(OutputStream out) {
+        this.out = new BufferedOutputStream(out);
     }
 
     /**
-     * Writes an object to the {@link ObjectOutputStream} and flushes
+     * Writes an object as a frame and flushes
      *
      * @param obj The object to send
      * @throws IOException any {@link Exception} thrown by the underlying {@link OutputStream}
      */
-    public synchronized void writeSyncedObjectFlush(Object obj) throws IOException{
-        super.writeObject(obj);
-        super.flush();
+    public synchronized void writeSyncedObjectFlush(Object obj) throws IOException {
+        ByteBuffer frame = Frames.encode(obj);
+        this.out.write(frame.array(), 0, frame.limit());
+        this.out.flush();
     }
 }
@@ -1,17 +1,27 @@
 package optimus.prime.rsa.server.config;
 
-import optimus.prime.rsa.payloads.SlicePayload;
+import optimus.prime.rsa.payloads.ProgressPayload;
 import optimus.prime.rsa.payloads.SolutionPayload;
+import optimus.prime.rsa.server.SliceLedger;
 
-import java.util.LinkedList;
-import java.util.Queue;
+import java.math.BigInteger;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class MasterConfiguration {
     public static long MASTER_CHECKS_PER_SLICE_PER_WORKER;
+    public static long MASTER_MILLIS_PER_SLICE;
+    public static double MASTER_BACKUP_FACTOR;
+    public static int MASTER_LEASE_MILLIS;
     public static int MAX_INCOMING_SLAVES;
-    public static int currentSliceStart = 0;
-    public static Queue<SlicePayload> lostSlices = new LinkedList<>();
+    public static long MASTER_BROADCAST_MILLIS;
+    public static int MASTER_BROADCAST_QUEUE;
+    // the state of every row of the mission, null until the mission is started
+    public static SliceLedger ledger = null;
+    // the latest progress of the master, the ledger is built from it if this host takes over
+    public static ProgressPayload progress = null;
     public static boolean isMaster = false;
     public static long startMillis = 0;
-    public static SolutionPayload solution = null;
+    // the solutions of the mission by the public key they crack
+    public static Map<BigInteger, SolutionPayload> solutions = new ConcurrentHashMap<>();
 }
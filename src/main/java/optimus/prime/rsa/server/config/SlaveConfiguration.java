@@ -1,5 +1,16 @@
 package optimus.prime.rsa.server.config;
 
+import optimus.prime.rsa.server.crypto.KeyRing;
+import optimus.prime.rsa.server.crypto.PairKernel;
+import optimus.prime.rsa.server.crypto.PrimeStore;
+import optimus.prime.rsa.server.crypto.ProductTree;
+
 public class SlaveConfiguration {
     public static int WORKERS;
+    public static int PREFETCHED_SLICES;
+    public static long HEARTBEAT_MILLIS;
+    public static PairKernel PAIR_KERNEL;
+    public static PrimeStore primeStore = null;
+    public static KeyRing keyRing = null;
+    public static ProductTree productTree = null;
 }
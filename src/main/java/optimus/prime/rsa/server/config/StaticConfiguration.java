@@ -1,5 +1,8 @@
 package optimus.prime.rsa.server.config;
 
+import optimus.prime.rsa.SearchMode;
+import optimus.prime.rsa.payloads.KeyPayload;
+
 import java.math.BigInteger;
 import java.util.List;
 
@@ -8,6 +11,6 @@ public class StaticConfiguration {
     public static int CLIENT_PORT;
     public static final int MASTER_RESTART_TIMEOUT = 5000;
     public static List<BigInteger> primes = null;
-    public static BigInteger PUB_RSA_KEY = BigInteger.ZERO;
-    public static String CIPHER = "";
+    public static List<KeyPayload> keys = null;
+    public static SearchMode SEARCH_MODE = SearchMode.PAIR_SCAN;
 }
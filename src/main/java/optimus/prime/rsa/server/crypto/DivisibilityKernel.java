@@ -0,0 +1,67 @@
+package optimus.prime.rsa.server.crypto;
+
+/**
+ * This kernel tests if a prime divides a 128-bit number without any division.
+ * For every prime p the inverse p^-1 mod 2^64 and the bound (2^64 - 1) / p are
+ * precomputed once. A 64-bit word x is divisible by an odd p exactly if
+ * x * p^-1 mod 2^64 is not greater than the bound.
+ * The kernel is immutable, so one instance can be shared by all workers.
+ */
+public class DivisibilityKernel {
+
+    private final long[] primes;
+    private final long[] inverses;
+    private final long[] bounds;
+
+    /**
+     * Create a new {@link DivisibilityKernel}
+     *
+     * @param words the primes as unsigned 64-bit words
+     */
+    public DivisibilityKernel(long[] words) {
+        this.primes = words;
+        this.inverses = new long[words.length];
+        this.bounds = new long[words.length];
+        for (int i = 0; i < words.length; i++) {
+            // even primes have no inverse, they are handled separately
+            if ((words[i] & 1) == 1) {
+                this.inverses[i] = ModulusChecker.inverseWord(words[i]);
+                this.bounds[i] = Long.divideUnsigned(-1L, words[i]);
+            }
+        }
+    }
+
+    /**
+     * Check if a prime divides the 128-bit number high * 2^64 + low
+     *
+     * @param index index of the prime
+     * @param high the upper 64 bits of the number
+     * @param low the lower 64 bits of the number
+     * @return true, if the prime divides the number
+     */
+    public boolean divides(int index, long high, long low) {
+        long prime = this.primes[index];
+        if ((prime & 1) == 0) {
+            // 2 is the only even prime
+            return prime == 2 && (low & 1) == 0;
+        }
+        long inverse = this.inverses[index];
+        // q * p matches the number in the lower 64 bits, so the number minus
+        // q * p is (high - c) * 2^64 with c being the upper 64 bits of q * p.
+        // Since p is odd, p divides the number exactly if p divides |high - c|.
+        long q = low * inverse;
+        long c = ModulusChecker.unsignedMultiplyHigh(q, prime);
+        long difference = Long.compareUnsigned(high, c) >= 0 ? high - c : c - high;
+        return Long.compareUnsigned(difference * inverse, this.bounds[index]) <= 0;
+    }
+
+    /**
+     * Get the inverse of a prime modulo 2^64
+     *
+     * @param index index of the prime
+     * @return the inverse of the prime, or 0 if the prime is even
+     */
+    public long getInverse(int index) {
+        return this.inverses[index];
+    }
+}
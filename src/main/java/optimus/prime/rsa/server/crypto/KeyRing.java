@@ -0,0 +1,139 @@
+package optimus.prime.rsa.server.crypto;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * This class holds the public keys of a mission that the workers test every
+ * candidate against. Every key is solved independently. As soon as a key is
+ * marked as solved, the workers stop testing against it, so the keys that are
+ * still outstanding get cheaper to check.
+ * The key ring is shared by all workers of a slave.
+ */
+public class KeyRing {
+
+    private final List<ModulusChecker> checkers = new ArrayList<>();
+    private final Map<BigInteger, Integer> indices = new HashMap<>();
+    // 1 if the key with the same index is solved, else 0
+    private final AtomicIntegerArray solved;
+    private final AtomicInteger outstanding;
+
+    /**
+     * Create a new {@link KeyRing}
+     *
+     * @param pubRsaKeys the public keys to find the private keys for
+     */
+    public KeyRing(Collection<BigInteger> pubRsaKeys) {
+        // the same key could be submitted twice, but it only has to be cracked once
+        for (BigInteger pubRsaKey : new LinkedHashSet<>(pubRsaKeys)) {
+            this.indices.put(pubRsaKey, this.checkers.size());
+            this.checkers.add(new ModulusChecker(pubRsaKey));
+        }
+        this.solved = new AtomicIntegerArray(this.checkers.size());
+        this.outstanding = new AtomicInteger(this.checkers.size());
+    }
+
+    /**
+     * Get the number of keys
+     *
+     * @return the number of keys, including the solved ones
+     */
+    public int size() {
+        return this.checkers.size();
+    }
+
+    /**
+     * Get the {@link ModulusChecker} of a key
+     *
+     * @param index index of the key
+     * @return the {@link ModulusChecker} of the key
+     */
+    public ModulusChecker get(int index) {
+        return this.checkers.get(index);
+    }
+
+    /**
+     * Get the index of a key
+     *
+     * @param pubRsaKey the public key
+     * @return the index of the key, or -1 if the key is not part of the key ring
+     */
+    public int indexOf(BigInteger pubRsaKey) {
+        Integer index = this.indices.get(pubRsaKey);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * Check if a key is solved
+     *
+     * @param index index of the key
+     * @return true, if the key is solved
+     */
+    public boolean isSolved(int index) {
+        return this.solved.get(index) == 1;
+    }
+
+    /**
+     * Mark a key as solved
+     *
+     * @param index index of the key
+     * @return true, if the key was not solved before
+     */
+    public boolean markSolved(int index) {
+        if (this.solved.compareAndSet(index, 0, 1)) {
+            this.outstanding.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Mark a key as solved
+     *
+     * @param pubRsaKey the public key
+     * @return true, if the key is part of the key ring and was not solved before
+     */
+    public boolean markSolved(BigInteger pubRsaKey) {
+        int index = this.indexOf(pubRsaKey);
+        return index >= 0 && this.markSolved(index);
+    }
+
+    /**
+     * Check if all keys are compact, so that the primitive kernels can be used
+     *
+     * @return true, if every modulus fits into 128 bits
+     */
+    public boolean isCompact() {
+        for (ModulusChecker checker : this.checkers) {
+            if (!checker.isCompact()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the number of keys that are not solved yet
+     *
+     * @return the number of outstanding keys
+     */
+    public int getOutstanding() {
+        return this.outstanding.get();
+    }
+
+    /**
+     * Check if there are keys that are not solved yet
+     *
+     * @return true, if at least one key is outstanding
+     */
+    public boolean hasOutstanding() {
+        return this.outstanding.get() > 0;
+    }
+}
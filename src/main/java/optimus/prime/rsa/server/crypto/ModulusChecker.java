@@ -0,0 +1,227 @@
+package optimus.prime.rsa.server.crypto;
+
+import java.math.BigInteger;
+
+/**
+ * this class checks pairs of primes against the modulus of a public key
+ * without generating any key material. The key pair itself should only be
+ * generated for the pair that passes the check.
+ */
+public class ModulusChecker {
+
+    private static final BigInteger ONE = BigInteger.ONE;
+
+    private final BigInteger modulus;
+
+    // the modulus split into two unsigned 64-bit words,
+    // only usable if the modulus fits into 128 bits
+    private final boolean compact;
+    private final long modulusHigh;
+    private final long modulusLow;
+
+    // the residue of the modulus for the buckets of the ResidueIndex
+    private final int residue;
+    // the products with the bit length k of the modulus are between 2^(k-1) and 2^k - 1
+    private final BigInteger minimumProduct;
+    private final BigInteger maximumProduct;
+
+    /**
+     * Create a new {@link ModulusChecker}
+     *
+     * @param modulus the modulus of the public key to check against
+     */
+    public ModulusChecker(BigInteger modulus) {
+        this.modulus = modulus;
+        this.compact = modulus.signum() > 0 && modulus.bitLength() <= 2 * Long.SIZE;
+        this.modulusHigh = modulus.shiftRight(Long.SIZE).longValue();
+        this.modulusLow = modulus.longValue();
+        this.residue = ResidueIndex.residue(modulus);
+        int bitLength = modulus.bitLength();
+        this.minimumProduct = ONE.shiftLeft(Math.max(bitLength - 1, 0));
+        this.maximumProduct = ONE.shiftLeft(bitLength).subtract(ONE);
+    }
+
+    /**
+     * this method checks if the product of p and q is the modulus
+     *
+     * @param p the first prime
+     * @param q the second prime
+     * @return true, if p * q equals the modulus, else false
+     */
+    public boolean matches(BigInteger p, BigInteger q) {
+        return p.multiply(q).equals(this.modulus);
+    }
+
+    /**
+     * this method checks if the 128-bit product of the unsigned 64-bit words p and q
+     * is the modulus. Only usable if the checker is compact.
+     *
+     * @param p the first prime as an unsigned 64-bit word
+     * @param q the second prime as an unsigned 64-bit word
+     * @return true, if p * q equals the modulus, else false
+     */
+    public boolean matches(long p, long q) {
+        return this.matchesFingerprint(p, q) && unsignedMultiplyHigh(p, q) == this.modulusHigh;
+    }
+
+    /**
+     * this method checks if the lower 64 bits of the product of the unsigned 64-bit
+     * words p and q match the lower 64 bits of the modulus. It is a single multiply,
+     * so it is used as a fingerprint before doing the full check.
+     *
+     * @param p the first prime as an unsigned 64-bit word
+     * @param q the second prime as an unsigned 64-bit word
+     * @return true, if (p * q) mod 2^64 equals the modulus mod 2^64, else false
+     */
+    public boolean matchesFingerprint(long p, long q) {
+        return p * q == this.modulusLow;
+    }
+
+    /**
+     * this method calculates the upper 64 bits of the 128-bit product of two
+     * unsigned 64-bit words
+     *
+     * @param x the first factor as an unsigned 64-bit word
+     * @param y the second factor as an unsigned 64-bit word
+     * @return the upper 64 bits of the product
+     */
+    public static long unsignedMultiplyHigh(long x, long y) {
+        // Math.multiplyHigh is signed. A negative factor means that the
+        // unsigned value is 2^64 larger, so the other factor has to be added
+        return Math.multiplyHigh(x, y) + ((x >> 63) & y) + ((y >> 63) & x);
+    }
+
+    /**
+     * this method calculates the bit length of the 128-bit product of two
+     * unsigned 64-bit words
+     *
+     * @param x the first factor as an unsigned 64-bit word
+     * @param y the second factor as an unsigned 64-bit word
+     * @return the bit length of the product
+     */
+    public static int productBitLength(long x, long y) {
+        long high = unsignedMultiplyHigh(x, y);
+        if (high != 0) {
+            return 2 * Long.SIZE - Long.numberOfLeadingZeros(high);
+        }
+        return Long.SIZE - Long.numberOfLeadingZeros(x * y);
+    }
+
+    /**
+     * this method calculates the multiplicative inverse of an odd unsigned
+     * 64-bit word modulo 2^64 with the Newton iteration
+     *
+     * @param x an odd unsigned 64-bit word
+     * @return the inverse y with x * y = 1 mod 2^64
+     */
+    public static long inverseWord(long x) {
+        // correct in the lowest 5 bits, every iteration doubles the correct bits
+        long y = (3 * x) ^ 2;
+        y *= 2 - x * y;
+        y *= 2 - x * y;
+        y *= 2 - x * y;
+        y *= 2 - x * y;
+        return y;
+    }
+
+    /**
+     * this method checks if a RSA key generated out of p and q fits to the public key.
+     * Same result as {@link RSAHelper#isValid(BigInteger, BigInteger, BigInteger)}, but
+     * the (expensive) exponent check is only done if the modulus matches.
+     *
+     * @param p the first prime
+     * @param q the second prime
+     * @return true, if the private key fits to the public key, else false
+     */
+    public boolean isValid(BigInteger p, BigInteger q) {
+        return this.matches(p, q) && isExponentValid(p, q);
+    }
+
+    /**
+     * this method checks if a private exponent can be calculated for p and q,
+     * which is the case if e and phi are coprime and p and q are different.
+     *
+     * @param p the first prime
+     * @param q the second prime
+     * @return true, if e is invertible modulo phi, else false
+     */
+    public static boolean isExponentValid(BigInteger p, BigInteger q) {
+        if (p.equals(q)) {
+            return false;
+        }
+        BigInteger phi = p.subtract(ONE).multiply(q.subtract(ONE));
+        return RSAStatics.e.gcd(phi).equals(ONE);
+    }
+
+    /**
+     * Check if the modulus fits into 128 bits and the long based methods can be used
+     *
+     * @return true, if the modulus fits into 128 bits
+     */
+    public boolean isCompact() {
+        return this.compact;
+    }
+
+    /**
+     * Get the bit length of the modulus
+     *
+     * @return the bit length of the modulus
+     */
+    public int getBitLength() {
+        return this.modulus.bitLength();
+    }
+
+    /**
+     * Get the upper 64 bits of the modulus
+     *
+     * @return the upper 64 bits of the modulus as an unsigned 64-bit word
+     */
+    public long getModulusHigh() {
+        return this.modulusHigh;
+    }
+
+    /**
+     * Get the lower 64 bits of the modulus
+     *
+     * @return the lower 64 bits of the modulus as an unsigned 64-bit word
+     */
+    public long getModulusLow() {
+        return this.modulusLow;
+    }
+
+    /**
+     * Get the modulus
+     *
+     * @return the modulus that is checked against
+     */
+    public BigInteger getModulus() {
+        return this.modulus;
+    }
+
+    /**
+     * Get the residue of the modulus
+     *
+     * @return the modulus modulo {@link ResidueIndex#MODULUS}
+     */
+    public int getResidue() {
+        return this.residue;
+    }
+
+    /**
+     * Get the smallest product with the bit length of the modulus
+     *
+     * @return 2^(k-1) for a modulus with the bit length k
+     */
+    public BigInteger getMinimumProduct() {
+        return this.minimumProduct;
+    }
+
+    /**
+     * Get the greatest product with the bit length of the modulus
+     *
+     * @return 2^k - 1 for a modulus with the bit length k
+     */
+    public BigInteger getMaximumProduct() {
+        return this.maximumProduct;
+    }
+}
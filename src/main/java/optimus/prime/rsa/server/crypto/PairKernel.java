@@ -0,0 +1,67 @@
+package optimus.prime.rsa.server.crypto;
+
+/**
+ * A kernel that scans the partners b of a row a for pairs whose low-word
+ * product fingerprint a * b mod 2^64 matches the lower 64 bits of the modulus.
+ * Only the pairs that are found by the kernel need the exact check.
+ * Kernels are stateless, so one instance can be shared by all workers.
+ */
+public interface PairKernel {
+
+    String SCALAR = "scalar";
+    String VECTOR = "vector";
+
+    /**
+     * Get the first partner within a window of the primes whose fingerprint matches
+     *
+     * @param words the primes as unsigned 64-bit words
+     * @param from index of the first partner to scan
+     * @param to index of the last partner to scan
+     * @param aWord the prime of the row as an unsigned 64-bit word
+     * @param target the lower 64 bits of the modulus
+     * @return the index of the partner, or -1 if no fingerprint matches
+     */
+    int nextWindowMatch(long[] words, int from, int to, long aWord, long target);
+
+    /**
+     * Get the first position within a bucket of the {@link ResidueIndex} whose partner's fingerprint matches
+     *
+     * @param words the primes as unsigned 64-bit words
+     * @param indices the indices of the primes, sorted by their bucket
+     * @param from the first position to scan
+     * @param to the position behind the last position to scan
+     * @param aWord the prime of the row as an unsigned 64-bit word
+     * @param target the lower 64 bits of the modulus
+     * @return the position, or -1 if no fingerprint matches
+     */
+    int nextBucketMatch(long[] words, int[] indices, int from, int to, long aWord, long target);
+
+    /**
+     * Get the name of the engine that the kernel implements
+     *
+     * @return {@link #SCALAR} or {@link #VECTOR}
+     */
+    String getName();
+
+    /**
+     * Create the kernel of an engine. The vector engine needs the module
+     * jdk.incubator.vector (java --add-modules jdk.incubator.vector), without
+     * it the scalar kernel is used.
+     *
+     * @param engine {@link #SCALAR} or {@link #VECTOR}
+     * @return the kernel of the engine, or the scalar kernel if the engine is not available
+     */
+    static PairKernel forEngine(String engine) {
+        if (VECTOR.equals(engine) && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                // loaded by name, because the class cannot be loaded without the module
+                return (PairKernel) Class.forName("optimus.prime.rsa.server.crypto.VectorPairKernel")
+                        .getDeclaredConstructor()
+                        .newInstance();
+            } catch (ReflectiveOperationException | LinkageError ignored) {
+                // the vector kernel is not part of the build
+            }
+        }
+        return new ScalarPairKernel();
+    }
+}
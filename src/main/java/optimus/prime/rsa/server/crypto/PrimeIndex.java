@@ -0,0 +1,82 @@
+package optimus.prime.rsa.server.crypto;
+
+/**
+ * An open-addressing hash set over primes stored as unsigned 64-bit words.
+ * It is used to check in constant time if a cofactor is part of the primes,
+ * without boxing any values.
+ */
+public class PrimeIndex {
+
+    // marks an empty slot, 0 is never a prime
+    private static final long EMPTY = 0;
+    // 2^64 divided by the golden ratio, used to spread the hash values
+    private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private final long[] table;
+    private final int mask;
+    private final int shift;
+
+    /**
+     * Create a new {@link PrimeIndex}
+     *
+     * @param words the primes as unsigned 64-bit words
+     */
+    public PrimeIndex(long[] words) {
+        // use a load factor of at most 0.5 to keep the probe sequences short
+        int capacity = Integer.highestOneBit(Math.max(words.length, 1) * 2 - 1) << 1;
+        this.table = new long[capacity];
+        this.mask = capacity - 1;
+        this.shift = Long.SIZE - Integer.numberOfTrailingZeros(capacity);
+
+        for (long word : words) {
+            this.add(word);
+        }
+    }
+
+    /**
+     * Add a prime to the index
+     *
+     * @param word the prime as an unsigned 64-bit word
+     */
+    private void add(long word) {
+        int slot = this.slot(word);
+        while (this.table[slot] != EMPTY) {
+            if (this.table[slot] == word) {
+                return;
+            }
+            slot = (slot + 1) & this.mask;
+        }
+        this.table[slot] = word;
+    }
+
+    /**
+     * Check if a value is part of the index
+     *
+     * @param word the value as an unsigned 64-bit word
+     * @return true, if the value is one of the primes
+     */
+    public boolean contains(long word) {
+        if (word == EMPTY) {
+            return false;
+        }
+        int slot = this.slot(word);
+        long entry;
+        while ((entry = this.table[slot]) != EMPTY) {
+            if (entry == word) {
+                return true;
+            }
+            slot = (slot + 1) & this.mask;
+        }
+        return false;
+    }
+
+    /**
+     * Get the first slot to probe for a value
+     *
+     * @param word the value as an unsigned 64-bit word
+     * @return the index of the first slot
+     */
+    private int slot(long word) {
+        return (int) ((word * HASH_MULTIPLIER) >>> this.shift) & this.mask;
+    }
+}
@@ -0,0 +1,215 @@
+package optimus.prime.rsa.server.crypto;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * This class holds the primes of a mission for the workers. If every prime
+ * fits into an unsigned 64-bit word, the primes are additionally stored in a
+ * primitive long array, so that the workers do not have to deal with
+ * {@link BigInteger}s in their hot loops.
+ * The primes are sorted ascending. Since every slave sorts the same list the
+ * same way, the indices of the slices are the same on every slave.
+ */
+public class PrimeStore {
+
+    private final List<BigInteger> primes;
+    // null if at least one prime does not fit into an unsigned 64-bit word
+    private final long[] words;
+    // the index is used to look up primes if the store is compact,
+    // the set is used otherwise
+    private final PrimeIndex index;
+    private final Set<BigInteger> set;
+    // null if the store is not compact
+    private final DivisibilityKernel divisibilityKernel;
+    private final ResidueIndex residueIndex;
+
+    /**
+     * Create a new {@link PrimeStore}
+     *
+     * @param primes the {@link List} of primes
+     */
+    public PrimeStore(List<BigInteger> primes) {
+        // copy the list, because the list of the master must not be reordered
+        primes = new ArrayList<>(primes);
+        primes.sort(null);
+        this.primes = primes;
+        this.words = toWords(primes);
+        if (this.words != null) {
+            this.index = new PrimeIndex(this.words);
+            this.set = null;
+            this.divisibilityKernel = new DivisibilityKernel(this.words);
+        } else {
+            this.index = null;
+            this.set = new HashSet<>(primes);
+            this.divisibilityKernel = null;
+        }
+        this.residueIndex = new ResidueIndex(primes);
+    }
+
+    /**
+     * Converts the primes into unsigned 64-bit words
+     *
+     * @param primes the {@link List} of primes
+     * @return the primes as unsigned 64-bit words or null, if a prime does not fit
+     */
+    private static long[] toWords(List<BigInteger> primes) {
+        long[] words = new long[primes.size()];
+        for (int i = 0; i < words.length; i++) {
+            BigInteger prime = primes.get(i);
+            if (prime.signum() < 0 || prime.bitLength() > Long.SIZE) {
+                return null;
+            }
+            // the lower 64 bits are the unsigned value of the prime
+            words[i] = prime.longValue();
+        }
+        return words;
+    }
+
+    /**
+     * Get the number of primes
+     *
+     * @return the number of primes
+     */
+    public int size() {
+        return this.primes.size();
+    }
+
+    /**
+     * Get a prime
+     *
+     * @param index index of the prime
+     * @return the prime as a {@link BigInteger}
+     */
+    public BigInteger get(int index) {
+        return this.primes.get(index);
+    }
+
+    /**
+     * Get a prime as an unsigned 64-bit word. Only available if the store is compact.
+     *
+     * @param index index of the prime
+     * @return the prime as an unsigned 64-bit word
+     */
+    public long getWord(int index) {
+        return this.words[index];
+    }
+
+    /**
+     * Get all primes as unsigned 64-bit words for the {@link PairKernel}s.
+     * Only available if the store is compact, the array must not be modified.
+     *
+     * @return the primes as unsigned 64-bit words
+     */
+    public long[] getWords() {
+        return this.words;
+    }
+
+    /**
+     * Check if all primes are available as unsigned 64-bit words
+     *
+     * @return true, if every prime fits into an unsigned 64-bit word
+     */
+    public boolean isCompact() {
+        return this.words != null;
+    }
+
+    /**
+     * Get the index of the first prime that is greater than or equal to a value
+     *
+     * @param value the value
+     * @return the index of the first prime that is not smaller than the value,
+     * or {@link #size()} if there is none
+     */
+    public int indexOfFirstAtLeast(BigInteger value) {
+        // binary search, the primes are sorted ascending
+        int low = 0;
+        int high = this.primes.size();
+        if (this.words != null && value.signum() >= 0 && value.bitLength() <= Long.SIZE) {
+            long word = value.longValue();
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (Long.compareUnsigned(this.words[middle], word) < 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (this.primes.get(middle).compareTo(value) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Get the index of the last prime that is smaller than or equal to a value
+     *
+     * @param value the value
+     * @return the index of the last prime that is not greater than the value,
+     * or -1 if there is none
+     */
+    public int indexOfLastAtMost(BigInteger value) {
+        return this.indexOfFirstAtLeast(value.add(BigInteger.ONE)) - 1;
+    }
+
+    /**
+     * Get the {@link DivisibilityKernel} of the primes. Only available if the store is compact.
+     *
+     * @return the {@link DivisibilityKernel}
+     */
+    public DivisibilityKernel getDivisibilityKernel() {
+        return this.divisibilityKernel;
+    }
+
+    /**
+     * Get the {@link ResidueIndex} that buckets the primes by their residues
+     *
+     * @return the {@link ResidueIndex}
+     */
+    public ResidueIndex getResidueIndex() {
+        return this.residueIndex;
+    }
+
+    /**
+     * Check if a value is one of the primes
+     *
+     * @param value the value to look up
+     * @return true, if the value is one of the primes
+     */
+    public boolean contains(BigInteger value) {
+        if (this.index != null) {
+            return value.signum() > 0 && value.bitLength() <= Long.SIZE && this.index.contains(value.longValue());
+        }
+        return this.set.contains(value);
+    }
+
+    /**
+     * Check if a value is one of the primes. Only available if the store is compact.
+     *
+     * @param word the value as an unsigned 64-bit word
+     * @return true, if the value is one of the primes
+     */
+    public boolean containsWord(long word) {
+        return this.index.contains(word);
+    }
+
+    /**
+     * Converts an unsigned 64-bit word into a {@link BigInteger}
+     *
+     * @param word the unsigned 64-bit word
+     * @return the value as a {@link BigInteger}
+     */
+    public static BigInteger toBigInteger(long word) {
+        return new BigInteger(Long.toUnsignedString(word));
+    }
+}
@@ -0,0 +1,177 @@
+package optimus.prime.rsa.server.crypto;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The product tree over a corpus of moduli for the batch GCD by Bernstein.
+ * The leaves are the moduli, every inner node is the product of its children
+ * and the root is the product P of all moduli. Descending the remainder tree
+ * from the root yields P mod N^2 for every modulus N, so that
+ * gcd(N, (P mod N^2) / N) is the product of the primes that N shares with
+ * any other modulus of the corpus.
+ * The tree is built once per mission and shared by all workers. The remainder
+ * tree is descended per slice of leaves, the remainders of the inner nodes are
+ * kept, so the expensive upper levels are only calculated once and not again
+ * for every slice.
+ */
+public class ProductTree {
+
+    // levels.get(0) are the moduli, levels.get(i + 1)[j] is the product of
+    // levels.get(i)[2j] and levels.get(i)[2j + 1]
+    private final List<BigInteger[]> levels = new ArrayList<>();
+    // remainders.get(i)[j] is P mod levels.get(i)[j]^2 once it has been calculated,
+    // the remainders of the leaves are only needed by a single slice and not kept
+    private final List<AtomicReferenceArray<BigInteger>> remainders = new ArrayList<>();
+
+    /**
+     * Create a new {@link ProductTree}
+     *
+     * @param moduli the corpus of moduli
+     */
+    public ProductTree(List<BigInteger> moduli) {
+        BigInteger[] level = moduli.toArray(new BigInteger[0]);
+        this.levels.add(level);
+        while (level.length > 1) {
+            BigInteger[] parents = new BigInteger[(level.length + 1) / 2];
+            for (int i = 0; i < parents.length; i++) {
+                // the last node of a level with an odd length has a single child
+                parents[i] = 2 * i + 1 < level.length ? level[2 * i].multiply(level[2 * i + 1]) : level[2 * i];
+            }
+            this.levels.add(parents);
+            level = parents;
+        }
+        for (BigInteger[] nodes : this.levels) {
+            this.remainders.add(new AtomicReferenceArray<>(nodes.length));
+        }
+    }
+
+    /**
+     * Calculate the upper levels of the remainder tree in advance, down to the
+     * first level with at least the given number of nodes. Otherwise the workers
+     * that start at the same time would all calculate the same remainders of the
+     * largest nodes.
+     *
+     * @param nodes the number of nodes of the lowest level to calculate, e.g. the number of workers
+     * @return false, if the thread has been interrupted
+     */
+    public boolean prepare(int nodes) {
+        for (int level = this.levels.size() - 2; level > 0 && this.levels.get(level + 1).length < nodes; level--) {
+            for (int index = 0; index < this.levels.get(level).length; index++) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return false;
+                }
+                this.getRemainder(level, index, this.getRemainder(level + 1, index / 2, null));
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the number of moduli
+     *
+     * @return the number of leaves of the tree
+     */
+    public int size() {
+        return this.levels.get(0).length;
+    }
+
+    /**
+     * Get a modulus
+     *
+     * @param index index of the modulus
+     * @return the modulus
+     */
+    public BigInteger getModulus(int index) {
+        return this.levels.get(0)[index];
+    }
+
+    /**
+     * Get the remainders P mod N^2 of the moduli N from start to end, with P being
+     * the product of all moduli. Only the nodes of the remainder tree that cover
+     * these moduli are calculated, unless another slice calculated them before.
+     *
+     * @param start index of the first modulus
+     * @param end index of the last modulus
+     * @return the remainders, or null if the thread has been interrupted
+     */
+    public BigInteger[] getRemainders(int start, int end) {
+        BigInteger[] remainders = new BigInteger[Math.max(end - start + 1, 0)];
+        if (remainders.length == 0) {
+            return remainders;
+        }
+        int top = this.levels.size() - 1;
+        if (!this.descend(top, 0, this.getRemainder(top, 0, null), start, end, remainders)) {
+            return null;
+        }
+        return remainders;
+    }
+
+    /**
+     * Descends the remainder tree below a node
+     *
+     * @param level the level of the node, 0 are the leaves
+     * @param index the index of the node within its level
+     * @param remainder P mod the square of the node
+     * @param start index of the first modulus to calculate the remainder for
+     * @param end index of the last modulus to calculate the remainder for
+     * @param remainders the remainders of the moduli from start to end
+     * @return false, if the thread has been interrupted
+     */
+    private boolean descend(int level, int index, BigInteger remainder, int start, int end, BigInteger[] remainders) {
+        // skip nodes that don't cover any of the requested moduli
+        long first = (long) index << level;
+        long last = ((long) (index + 1) << level) - 1;
+        if (last < start || first > end) {
+            return true;
+        }
+        if (level == 0) {
+            remainders[index - start] = remainder;
+            return true;
+        }
+        // the upper levels are the expensive ones, check for interrupts on every node
+        if (Thread.currentThread().isInterrupted()) {
+            return false;
+        }
+
+        int children = this.levels.get(level - 1).length;
+        for (int child = 2 * index; child <= 2 * index + 1 && child < children; child++) {
+            if (!this.descend(level - 1, child, this.getRemainder(level - 1, child, remainder), start, end, remainders)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get P mod the square of a node. The remainder of an inner node is calculated
+     * once and kept, two workers that need it at the same time may both calculate it.
+     *
+     * @param level the level of the node, 0 are the leaves
+     * @param index the index of the node within its level
+     * @param parentRemainder P mod the square of the parent of the node, null if it has been calculated before
+     * @return the remainder of the node
+     */
+    private BigInteger getRemainder(int level, int index, BigInteger parentRemainder) {
+        int top = this.levels.size() - 1;
+        if (level == top) {
+            // the root is P itself, which is smaller than P^2
+            return this.levels.get(top)[0];
+        }
+        BigInteger remainder = this.remainders.get(level).get(index);
+        if (remainder != null) {
+            return remainder;
+        }
+        if (parentRemainder == null) {
+            parentRemainder = this.getRemainder(level + 1, index / 2, null);
+        }
+        BigInteger node = this.levels.get(level)[index];
+        remainder = parentRemainder.mod(node.multiply(node));
+        if (level > 0) {
+            this.remainders.get(level).set(index, remainder);
+        }
+        return remainder;
+    }
+}
@@ -0,0 +1,165 @@
+package optimus.prime.rsa.server.crypto;
+
+import java.math.BigInteger;
+import java.util.List;
+
+/**
+ * This index buckets the primes by their residue modulo a product of small
+ * moduli. A pair (a, b) can only produce the modulus N if a * b = N holds
+ * modulo every small modulus, so for a given row a only the bucket with the
+ * residue N * a^-1 has to be visited instead of the whole row.
+ */
+public class ResidueIndex {
+
+    // 8 * 3 * 5 * 7 * 11 * 13, there are phi(MODULUS) = 23040 buckets that odd
+    // primes greater than 13 can fall into
+    public static final int MODULUS = 8 * 3 * 5 * 7 * 11 * 13;
+    private static final BigInteger BIG_MODULUS = BigInteger.valueOf(MODULUS);
+
+    // the residue of every prime
+    private final int[] residues;
+    // the inverse of every residue, or 0 if the residue is not invertible
+    private final int[] inverses;
+    // the bucket of residue r are the indices from offsets[r] to offsets[r + 1]
+    private final int[] offsets;
+    // the indices of the primes, sorted by their bucket and ascending within a bucket
+    private final int[] indices;
+
+    /**
+     * Create a new {@link ResidueIndex}
+     *
+     * @param primes the {@link List} of primes
+     */
+    public ResidueIndex(List<BigInteger> primes) {
+        this.residues = new int[primes.size()];
+        this.offsets = new int[MODULUS + 1];
+        for (int i = 0; i < this.residues.length; i++) {
+            this.residues[i] = residue(primes.get(i));
+            this.offsets[this.residues[i] + 1]++;
+        }
+
+        // prefix sums are the start of the buckets
+        for (int r = 0; r < MODULUS; r++) {
+            this.offsets[r + 1] += this.offsets[r];
+        }
+
+        // fill the buckets, iterating the primes in ascending order keeps
+        // the indices in every bucket ascending
+        this.indices = new int[this.residues.length];
+        int[] next = new int[MODULUS];
+        System.arraycopy(this.offsets, 0, next, 0, MODULUS);
+        for (int i = 0; i < this.residues.length; i++) {
+            this.indices[next[this.residues[i]]++] = i;
+        }
+
+        this.inverses = new int[MODULUS];
+        for (int r = 1; r < MODULUS; r++) {
+            this.inverses[r] = inverse(r);
+        }
+    }
+
+    /**
+     * Get the residue of a value
+     *
+     * @param value the value
+     * @return the value modulo {@link #MODULUS}
+     */
+    public static int residue(BigInteger value) {
+        return value.mod(BIG_MODULUS).intValue();
+    }
+
+    /**
+     * Get the residue that the partner b of the prime a must have for a * b to
+     * be the modulus
+     *
+     * @param a index of the prime
+     * @param modulusResidue the residue of the modulus
+     * @return the residue of the partner, or -1 if the residue of a is not
+     * invertible and every partner is possible
+     */
+    public int getPartnerResidue(int a, int modulusResidue) {
+        int inverse = this.inverses[this.residues[a]];
+        if (inverse == 0) {
+            return -1;
+        }
+        return (int) ((long) modulusResidue * inverse % MODULUS);
+    }
+
+    /**
+     * Get the first position in a bucket that holds an index greater than the given index
+     *
+     * @param residue the residue of the bucket
+     * @param after the index to start after
+     * @return the first position in the bucket
+     */
+    public int getBucketStart(int residue, int after) {
+        // binary search, the indices within a bucket are ascending
+        int low = this.offsets[residue];
+        int high = this.offsets[residue + 1];
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (this.indices[middle] <= after) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Get the position behind the last index of a bucket
+     *
+     * @param residue the residue of the bucket
+     * @return the position behind the bucket
+     */
+    public int getBucketEnd(int residue) {
+        return this.offsets[residue + 1];
+    }
+
+    /**
+     * Get the index of a prime stored at a position
+     *
+     * @param position the position within the buckets
+     * @return the index of the prime
+     */
+    public int getIndex(int position) {
+        return this.indices[position];
+    }
+
+    /**
+     * Get the indices of the primes, sorted by their bucket, for the {@link PairKernel}s.
+     * The array must not be modified.
+     *
+     * @return the indices of all buckets
+     */
+    public int[] getIndices() {
+        return this.indices;
+    }
+
+    /**
+     * Calculates the inverse of a residue with the extended euclidean algorithm
+     *
+     * @param residue the residue
+     * @return the inverse modulo {@link #MODULUS}, or 0 if there is none
+     */
+    private static int inverse(int residue) {
+        int r0 = MODULUS;
+        int r1 = residue;
+        int t0 = 0;
+        int t1 = 1;
+        while (r1 != 0) {
+            int quotient = r0 / r1;
+            int r = r0 - quotient * r1;
+            r0 = r1;
+            r1 = r;
+            int t = t0 - quotient * t1;
+            t0 = t1;
+            t1 = t;
+        }
+        if (r0 != 1) {
+            return 0;
+        }
+        return t0 < 0 ? t0 + MODULUS : t0;
+    }
+}
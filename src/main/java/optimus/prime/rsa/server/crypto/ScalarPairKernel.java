@@ -0,0 +1,32 @@
+package optimus.prime.rsa.server.crypto;
+
+/**
+ * The {@link PairKernel} that checks one partner per iteration
+ */
+public class ScalarPairKernel implements PairKernel {
+
+    @Override
+    public int nextWindowMatch(long[] words, int from, int to, long aWord, long target) {
+        for (int b = from; b <= to; b++) {
+            if (aWord * words[b] == target) {
+                return b;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int nextBucketMatch(long[] words, int[] indices, int from, int to, long aWord, long target) {
+        for (int position = from; position < to; position++) {
+            if (aWord * words[indices[position]] == target) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public String getName() {
+        return SCALAR;
+    }
+}
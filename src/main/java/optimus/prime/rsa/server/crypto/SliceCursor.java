@@ -0,0 +1,187 @@
+package optimus.prime.rsa.server.crypto;
+
+import optimus.prime.rsa.payloads.SlicePayload;
+import optimus.prime.rsa.payloads.SolutionPayload;
+import optimus.prime.rsa.server.Utils;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * This class hands out the rows of a major slice to the workers in chunks.
+ * The chunks are claimed in ascending order, so the rows that have not been
+ * started yet are always the tail of the slice. This tail can be split off
+ * and handed to another slave while the workers are still working on the slice.
+ * The chunks get smaller the less rows are left, so that the workers finish
+ * the slice at about the same time.
+ * The chunks that have been inspected and the solutions found in them are recorded,
+ * so that the master only has to hand out the rest of the slice if the slave dies
+ * while working on it.
+ */
+public class SliceCursor {
+
+    // the number of chunks the remaining rows are divided into per worker
+    private static final int CHUNKS_PER_WORKER = 2;
+    // the smallest chunk is this share of a worker of the major slice
+    private static final int PIECES_PER_WORKER = 8;
+
+    private final int start;
+    private final int numberOfPrimes;
+    private final boolean linear;
+    private final int chunks;
+    // the smallest number of rows that is claimed at once
+    private final int grain;
+
+    // the first row that has not been claimed yet
+    private int next;
+    // the last row of the slice, moves towards the start if the tail is split off
+    private int end;
+    // the chunks that have been inspected since the last checkpoint, sorted and merged
+    private List<SlicePayload> completed = new LinkedList<>();
+    // the solutions that have not been handed out by a checkpoint yet
+    private final List<SolutionPayload> solutions = new ArrayList<>();
+
+    /**
+     * Create a new {@link SliceCursor}
+     *
+     * @param slice the major slice to hand out
+     * @param numberOfPrimes the number of primes of the pair scan
+     * @param linear true, if every index of the slice is one check, false for the pair scan
+     * @param workers the number of workers that claim the chunks
+     */
+    public SliceCursor(SlicePayload slice, int numberOfPrimes, boolean linear, int workers) {
+        this.start = slice.getStart();
+        this.next = slice.getStart();
+        this.end = slice.getEnd();
+        this.numberOfPrimes = numberOfPrimes;
+        this.linear = linear;
+        this.chunks = Math.max(workers, 1) * CHUNKS_PER_WORKER;
+        this.grain = Math.max((slice.getEnd() - slice.getStart() + 1) / (Math.max(workers, 1) * PIECES_PER_WORKER), 1);
+    }
+
+    /**
+     * Claim the next chunk of rows
+     *
+     * @return the chunk, or null if every row has been claimed
+     */
+    public synchronized SlicePayload claim() {
+        if (this.next > this.end) {
+            return null;
+        }
+        SlicePayload first = this.split(new SlicePayload(this.next, this.end), this.chunks).peek();
+        int chunkEnd = first == null ? this.end : first.getEnd();
+        chunkEnd = Math.min(Math.max(chunkEnd, this.next + this.grain - 1), this.end);
+
+        SlicePayload chunk = new SlicePayload(this.next, chunkEnd);
+        this.next = chunkEnd + 1;
+        return chunk;
+    }
+
+    /**
+     * Check if every row has been claimed
+     *
+     * @return true, if there are no rows of the slice left to claim
+     */
+    public synchronized boolean isClaimed() {
+        return this.next > this.end;
+    }
+
+    /**
+     * Record the solutions that have been found in a claimed chunk
+     *
+     * @param found the {@link SolutionPayload}s that have been found, may be empty
+     */
+    public synchronized void addSolutions(List<SolutionPayload> found) {
+        this.solutions.addAll(found);
+    }
+
+    /**
+     * Record that a claimed chunk has been inspected completely. The solutions
+     * of the chunk have to be recorded before.
+     *
+     * @param chunk the chunk that has been inspected
+     */
+    public synchronized void complete(SlicePayload chunk) {
+        Utils.addRange(this.completed, chunk);
+    }
+
+    /**
+     * Hand out the solutions and the chunks that have been inspected since the
+     * last checkpoint. The solutions are handed out together with the chunks,
+     * so a chunk is never reported without its solutions.
+     *
+     * @param found the {@link List} that the new solutions are added to
+     * @return the rows completed since the last checkpoint in ascending order, or null if there are none
+     */
+    public synchronized List<SlicePayload> checkpoint(List<SolutionPayload> found) {
+        found.addAll(this.solutions);
+        this.solutions.clear();
+        if (this.completed.isEmpty()) {
+            return null;
+        }
+        List<SlicePayload> completed = this.completed;
+        this.completed = new LinkedList<>();
+        return completed;
+    }
+
+    /**
+     * Split off the second half of the rows that have not been claimed yet
+     *
+     * @return the tail that is no longer part of the slice, or null if there are too few rows left
+     */
+    public synchronized SlicePayload splitTail() {
+        if (this.end - this.next + 1 < 2) {
+            return null;
+        }
+        Iterator<SlicePayload> halves = this.split(new SlicePayload(this.next, this.end), 2).iterator();
+        SlicePayload kept = halves.next();
+        if (!halves.hasNext()) {
+            return null;
+        }
+        this.end = kept.getEnd();
+        return halves.next();
+    }
+
+    /**
+     * Drop all rows that have not been claimed yet, the chunks that have
+     * already been claimed are still inspected
+     *
+     * @return the rows that are no longer part of the slice, or null if every row has been claimed
+     */
+    public synchronized SlicePayload abandon() {
+        if (this.next > this.end) {
+            return null;
+        }
+        SlicePayload tail = new SlicePayload(this.next, this.end);
+        this.end = this.next - 1;
+        return tail;
+    }
+
+    /**
+     * Get the rows that belong to the slice. This are the rows that have been
+     * claimed and the rows that are left, without the tails that have been split off.
+     *
+     * @return the slice
+     */
+    public synchronized SlicePayload getSlice() {
+        return new SlicePayload(this.start, this.end);
+    }
+
+    /**
+     * Splits a range of rows into parts with the same costs
+     *
+     * @param slice the range of rows
+     * @param n the number of parts
+     * @return the parts in ascending order
+     */
+    private Queue<SlicePayload> split(SlicePayload slice, int n) {
+        if (this.linear) {
+            return Utils.getNSlices(slice, n);
+        }
+        // the first rows of the pair scan have more pairs than the last ones
+        return Utils.getNSlices(slice, n, this.numberOfPrimes);
+    }
+}
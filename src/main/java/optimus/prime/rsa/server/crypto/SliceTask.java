@@ -0,0 +1,175 @@
+package optimus.prime.rsa.server.crypto;
+
+import optimus.prime.rsa.SearchMode;
+import optimus.prime.rsa.payloads.SlicePayload;
+import optimus.prime.rsa.payloads.SolutionPayload;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * This task inspects a major slice in a {@link java.util.concurrent.ForkJoinPool}.
+ * Instead of splitting the slice into one minor slice per worker up front, the
+ * task forks a helper per worker. The task and its helpers claim chunks of the
+ * slice from a shared {@link SliceCursor} until every row has been claimed, so
+ * a helper that is done early simply claims the next chunk. Helpers that are
+ * not picked up by an idle worker are inspected by the task itself when joining.
+ * Because the chunks are claimed in order, the rows that have not been started
+ * yet can be split off and handed to another slave, see {@link #splitTail()}.
+ * The chunks that are done can be reported to the master, see {@link #checkpoint(List)}.
+ */
+public class SliceTask extends RecursiveTask<List<SolutionPayload>> {
+
+    private final SliceCursor cursor;
+    private final PrimeStore primes;
+    private final KeyRing keys;
+    private final SearchMode searchMode;
+    private final ProductTree productTree;
+    private final PairKernel kernel;
+    private final int workers;
+    // only the task of the major slice forks the helpers
+    private final boolean root;
+
+    /**
+     * Create a new {@link SliceTask} for a major slice
+     *
+     * @param slice the major slice to inspect
+     * @param primes the {@link PrimeStore} of prime numbers
+     * @param keys the {@link KeyRing} of public keys to find the private keys for
+     * @param searchMode the {@link SearchMode} that defines the meaning of the slice
+     * @param productTree the {@link ProductTree} of the public keys, only needed for the batch GCD
+     * @param kernel the {@link PairKernel} that scans the rows of the compact pair scan
+     * @param workers the number of workers that inspect the slice
+     */
+    public SliceTask(SlicePayload slice, PrimeStore primes, KeyRing keys, SearchMode searchMode, ProductTree productTree, PairKernel kernel, int workers) {
+        this.cursor = new SliceCursor(slice, searchMode.isLinear() ? 0 : primes.size(), searchMode.isLinear(), workers);
+        this.primes = primes;
+        this.keys = keys;
+        this.searchMode = searchMode;
+        this.productTree = productTree;
+        this.kernel = kernel;
+        this.workers = Math.max(workers, 1);
+        this.root = true;
+    }
+
+    /**
+     * Create a new helper of a {@link SliceTask}
+     *
+     * @param parent the task of the major slice
+     */
+    private SliceTask(SliceTask parent) {
+        this.cursor = parent.cursor;
+        this.primes = parent.primes;
+        this.keys = parent.keys;
+        this.searchMode = parent.searchMode;
+        this.productTree = parent.productTree;
+        this.kernel = parent.kernel;
+        this.workers = parent.workers;
+        this.root = false;
+    }
+
+    /**
+     * inspects the slice together with the helpers
+     *
+     * @return the {@link SolutionPayload}s that have been found, may be empty
+     */
+    @Override
+    protected List<SolutionPayload> compute() {
+        if (!this.root) {
+            this.inspectChunks();
+            // the solutions are recorded by the cursor and returned by the task of the major slice
+            return new ArrayList<>();
+        }
+
+        // one helper for every other worker, idle workers steal them
+        Deque<SliceTask> helpers = new ArrayDeque<>();
+        for (int i = 1; i < this.workers; i++) {
+            SliceTask helper = new SliceTask(this);
+            helper.fork();
+            helpers.push(helper);
+        }
+
+        this.inspectChunks();
+
+        // join the helpers in reverse order, the helpers that were not stolen
+        // find every chunk claimed and return right away
+        while (!helpers.isEmpty()) {
+            helpers.pop().join();
+        }
+        // the solutions that have not been handed out by a checkpoint
+        List<SolutionPayload> solutions = new ArrayList<>();
+        this.cursor.checkpoint(solutions);
+        return solutions;
+    }
+
+    /**
+     * claims chunks and inspects them, until every row has been claimed.
+     * The {@link SolutionPayload}s are recorded by the {@link SliceCursor}.
+     */
+    private void inspectChunks() {
+        // skip the work if every key has been solved in the meantime
+        while (this.keys.hasOutstanding() && !Thread.currentThread().isInterrupted()) {
+            SlicePayload chunk = this.cursor.claim();
+            if (chunk == null) {
+                break;
+            }
+            List<SolutionPayload> found = new Worker(chunk, this.primes, this.keys, this.searchMode, this.productTree, this.kernel).call();
+            this.cursor.addSolutions(found);
+            // an interrupted worker stops in the middle of the chunk
+            if (this.keys.hasOutstanding() && !Thread.currentThread().isInterrupted()) {
+                this.cursor.complete(chunk);
+            }
+        }
+    }
+
+    /**
+     * Split off the second half of the rows that no worker has started yet
+     *
+     * @return the tail that is no longer inspected by this task, or null if there are too few rows left
+     */
+    public SlicePayload splitTail() {
+        return this.cursor.splitTail();
+    }
+
+    /**
+     * Stop claiming rows, because another slave finished the slice first
+     *
+     * @return the rows that are not inspected by this task, or null if every row has been claimed
+     */
+    public SlicePayload abandon() {
+        return this.cursor.abandon();
+    }
+
+    /**
+     * Check if every row of the slice has been claimed by a worker
+     *
+     * @return true, if the workers have no rows of the slice left to start
+     */
+    public boolean isClaimed() {
+        return this.cursor.isClaimed();
+    }
+
+    /**
+     * Hand out the solutions that have been found since the last checkpoint and get
+     * the rows of the slice that have been inspected since then. The solutions that
+     * have been handed out are not part of the result of the task anymore.
+     *
+     * @param solutions the {@link List} that the new solutions are added to
+     * @return the rows completed since the last checkpoint in ascending order, or null if there are none
+     */
+    public List<SlicePayload> checkpoint(List<SolutionPayload> solutions) {
+        return this.cursor.checkpoint(solutions);
+    }
+
+    /**
+     * Get the rows that this task inspects
+     *
+     * @return the major slice without the tails that have been split off
+     */
+    public SlicePayload getSlice() {
+        return this.cursor.getSlice();
+    }
+}
@@ -0,0 +1,125 @@
+package optimus.prime.rsa.server.crypto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters that the workers of a slave report to during a mission.
+ * They show how much work the pruning and the filters of the pair scan saved
+ * and how evenly the minor slices kept the workers busy.
+ */
+public class WorkerStatistics {
+
+    // pairs that are part of the slices of the pair scan
+    private static final LongAdder pairsCovered = new LongAdder();
+    // pairs that have been inspected by the pair scan, the others were pruned
+    private static final LongAdder pairs = new LongAdder();
+    // pairs that passed the low-word fingerprint and needed a full check
+    private static final LongAdder fullChecks = new LongAdder();
+    // rows whose band of possible partners is empty
+    private static final LongAdder rowsSkipped = new LongAdder();
+    // nanoseconds that every worker thread spent inspecting slices
+    private static final Map<String, LongAdder> busyTimes = new ConcurrentHashMap<>();
+    // nanoseconds from handing out a major slice to the workers until it is done
+    private static final LongAdder roundTime = new LongAdder();
+
+    /**
+     * Report the counters of a pair scan
+     *
+     * @param pairsInSlice the number of pairs that are part of the slice
+     * @param pairsInspected the number of inspected pairs
+     * @param fullChecksDone the number of pairs that needed a full check
+     * @param rowsWithoutBand the number of rows that have been skipped
+     */
+    public static void recordPairScan(long pairsInSlice, long pairsInspected, long fullChecksDone, long rowsWithoutBand) {
+        pairsCovered.add(pairsInSlice);
+        pairs.add(pairsInspected);
+        fullChecks.add(fullChecksDone);
+        rowsSkipped.add(rowsWithoutBand);
+    }
+
+    /**
+     * Report the rows of a pair scan that have been skipped, because their band is empty
+     *
+     * @param rowsWithoutBand the number of rows that have been skipped
+     */
+    public static void recordSkippedRows(long rowsWithoutBand) {
+        rowsSkipped.add(rowsWithoutBand);
+    }
+
+    /**
+     * Report the time a worker spent inspecting a slice
+     *
+     * @param worker the name of the worker thread
+     * @param nanos the time in nanoseconds
+     */
+    public static void recordBusyTime(String worker, long nanos) {
+        busyTimes.computeIfAbsent(worker, w -> new LongAdder()).add(nanos);
+    }
+
+    /**
+     * Report the time the workers needed for a major slice.
+     * Every worker that was not busy during this time was idle.
+     *
+     * @param nanos the time in nanoseconds
+     */
+    public static void recordRound(long nanos) {
+        roundTime.add(nanos);
+    }
+
+    /**
+     * Reset all counters for the next mission
+     */
+    public static void reset() {
+        pairsCovered.reset();
+        pairs.reset();
+        fullChecks.reset();
+        rowsSkipped.reset();
+        busyTimes.clear();
+        roundTime.reset();
+    }
+
+    /**
+     * Get a summary of the counters
+     *
+     * @return the summary as a {@link String}
+     */
+    public static String summary() {
+        long covered = pairsCovered.sum();
+        long inspected = pairs.sum();
+        long full = fullChecks.sum();
+        double pruningRatio = covered == 0 ? 0 : 1 - inspected / (double) covered;
+        return "pairs covered: " + covered
+                + ", pairs inspected: " + inspected
+                + String.format(" (%.4f%% pruned)", pruningRatio * 100)
+                + ", rows skipped: " + rowsSkipped.sum()
+                + ", full checks: " + full
+                + ", full checks saved by the fingerprint: " + (inspected - full);
+    }
+
+    /**
+     * Get the busy and idle time of every worker thread. The idle time is the
+     * time that a worker had nothing to do while the slave was working on a major slice.
+     *
+     * @return one line per worker thread, sorted by the name of the thread
+     */
+    public static List<String> utilisation() {
+        long round = TimeUnit.NANOSECONDS.toMillis(roundTime.sum());
+        List<String> lines = new ArrayList<>();
+        for (Map.Entry<String, LongAdder> entry : new TreeMap<>(busyTimes).entrySet()) {
+            long busy = TimeUnit.NANOSECONDS.toMillis(entry.getValue().sum());
+            long idle = Math.max(round - busy, 0);
+            double busyRatio = round == 0 ? 0 : Math.min(busy / (double) round, 1);
+            lines.add(entry.getKey()
+                    + " - busy: " + busy + "ms"
+                    + ", idle: " + idle + "ms"
+                    + String.format(" (%.1f%% busy)", busyRatio * 100));
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,56 @@
+package optimus.prime.rsa.server.crypto;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The {@link PairKernel} that checks a whole vector of partners per iteration
+ * with the Vector API. The partners of a bucket are gathered by their indices.
+ * Only the lanes that match drop out of the vector loop, the remaining
+ * partners that do not fill a whole vector are checked one by one.
+ * This class needs the module jdk.incubator.vector, see {@link PairKernel#forEngine(String)}.
+ */
+public class VectorPairKernel implements PairKernel {
+
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+    @Override
+    public int nextWindowMatch(long[] words, int from, int to, long aWord, long target) {
+        int b = from;
+        for (int bound = to + 1 - SPECIES.length(); b <= bound; b += SPECIES.length()) {
+            VectorMask<Long> matches = LongVector.fromArray(SPECIES, words, b).mul(aWord).eq(target);
+            if (matches.anyTrue()) {
+                return b + matches.firstTrue();
+            }
+        }
+        for (; b <= to; b++) {
+            if (aWord * words[b] == target) {
+                return b;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int nextBucketMatch(long[] words, int[] indices, int from, int to, long aWord, long target) {
+        int position = from;
+        for (int bound = to - SPECIES.length(); position <= bound; position += SPECIES.length()) {
+            VectorMask<Long> matches = LongVector.fromArray(SPECIES, words, 0, indices, position).mul(aWord).eq(target);
+            if (matches.anyTrue()) {
+                return position + matches.firstTrue();
+            }
+        }
+        for (; position < to; position++) {
+            if (aWord * words[indices[position]] == target) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public String getName() {
+        return VECTOR;
+    }
+}